@@ -259,6 +259,9 @@ public abstract class Pl3xMap {
         Logger.debug("Starting update settings data task");
         getScheduler().addTask(new UpdateSettingsData());
 
+        Logger.debug("Starting region priority task");
+        getScheduler().addTask(5, true, getRegionProcessor().getPriority()::update);
+
         Logger.info("Platform: " + getPlatform());
         Logger.info("Version: " + getVersion());
 
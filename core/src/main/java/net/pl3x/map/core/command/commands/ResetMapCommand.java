@@ -74,6 +74,7 @@ public class ResetMapCommand extends Pl3xMapCommand {
             String result;
             try {
                 FileUtil.deleteDirectory(world.getTilesDirectory());
+                Pl3xMap.api().getHttpdServer().getTileCache().clear();
                 result = Lang.COMMAND_RESETMAP_SUCCESS;
             } catch (IOException e) {
                 result = Lang.COMMAND_RESETMAP_FAILED;
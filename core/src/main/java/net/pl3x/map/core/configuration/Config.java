@@ -117,6 +117,22 @@ public final class Config extends AbstractConfig {
             It is generally advised against enabling this,
             for security reasons. But you do you, boo boo.""")
     public static boolean HTTPD_FOLLOW_SYMLINKS = false;
+    @Key("settings.internal-webserver.tile-cache-size")
+    @Comment("""
+            How many megabytes of recently served tiles the built-in
+            web server keeps in memory. Value of 0 disables the cache.""")
+    public static int HTTPD_TILE_CACHE_SIZE = 64;
+    @Key("settings.internal-webserver.batch-tiles")
+    @Comment("""
+            Lets the map fetch all tiles of the first view in a single
+            request, instead of one request per tile. This helps a lot
+            on slow connections with high latency.""")
+    public static boolean HTTPD_BATCH_TILES = true;
+    @Key("settings.internal-webserver.map-windows")
+    @Comment("""
+            Lets the client mod fetch just the part of the map shown
+            on a held map item, instead of the whole tiles around it.""")
+    public static boolean HTTPD_MAP_WINDOWS = true;
 
     @Key("settings.performance.render-threads")
     @Comment("""
@@ -124,6 +140,14 @@ public final class Config extends AbstractConfig {
             Value of -1 will use 50% of the available cpu-threads. (recommended)""")
     public static int RENDER_THREADS = -1;
 
+    @Key("settings.performance.render-on-view")
+    @Comment("""
+            Only renders regions once someone looks at them on the map,
+            instead of rendering whole worlds up front. Regions that were
+            rendered before are still kept up to date as they change.
+            Needs the internal web server.""")
+    public static boolean RENDER_ON_VIEW = false;
+
     @Key("settings.performance.gc.when-finished")
     @Comment("""
             Runs the JVM GC after a render job stops to free up memory immediately.""")
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.MimeMappings;
+import io.undertow.util.StatusCodes;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import net.pl3x.map.core.configuration.Config;
+import net.pl3x.map.core.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Serves tile images from the {@link TileCache}, handing everything else to the next handler.
+ */
+public class CachedTileHandler implements HttpHandler {
+    private final TileCache tileCache;
+    private final HttpHandler next;
+
+    public CachedTileHandler(@NotNull TileCache tileCache, @NotNull HttpHandler next) {
+        this.tileCache = tileCache;
+        this.next = next;
+    }
+
+    @Override
+    public void handleRequest(@NotNull HttpServerExchange exchange) throws Exception {
+        String url = exchange.getRelativePath();
+        boolean get = exchange.getRequestMethod().equals(Methods.GET);
+        if (Config.HTTPD_TILE_CACHE_SIZE <= 0 || !(get || exchange.getRequestMethod().equals(Methods.HEAD))
+                || !url.startsWith("/tiles/") || !url.endsWith("." + Config.WEB_TILE_FORMAT)) {
+            this.next.handleRequest(exchange);
+            return;
+        }
+
+        Path tilesDir = FileUtil.getTilesDir().toAbsolutePath().normalize();
+        Path path = tilesDir.resolve(url.substring("/tiles/".length())).normalize();
+        if (!path.startsWith(tilesDir)) {
+            this.next.handleRequest(exchange);
+            return;
+        }
+
+        TileCache.Tile tile = this.tileCache.getIfPresent(path);
+        if (tile == null) {
+            if (exchange.isInIoThread()) {
+                // reading the tile from disk blocks, move off the io thread
+                exchange.dispatch(this);
+                return;
+            }
+            tile = this.tileCache.get(path);
+            if (tile == null) {
+                // let the resource handler deal with missing tiles
+                this.next.handleRequest(exchange);
+                return;
+            }
+        }
+
+        exchange.getResponseHeaders().put(Headers.ETAG, tile.etag().toString());
+        if (!ETagUtils.handleIfNoneMatch(exchange, tile.etag(), true)) {
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+
+        String type = MimeMappings.DEFAULT.getMimeType(Config.WEB_TILE_FORMAT);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, type == null ? "application/octet-stream" : type);
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, tile.bytes().length);
+        if (get) {
+            exchange.getResponseSender().send(ByteBuffer.wrap(tile.bytes()));
+        } else {
+            exchange.endExchange();
+        }
+    }
+}
@@ -40,16 +40,33 @@ import net.pl3x.map.core.configuration.Lang;
 import net.pl3x.map.core.log.LogFilter;
 import net.pl3x.map.core.log.Logger;
 import net.pl3x.map.core.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
 
 public class HttpdServer {
+    private final TileChangeFeed tileChangeFeed = new TileChangeFeed();
+    private final TileCache tileCache = new TileCache();
+    private final RenderOnView renderOnView = new RenderOnView();
+    private final TileBatchHandler tileBatchHandler = new TileBatchHandler(this.tileCache, this.renderOnView);
+    private final MapWindowHandler mapWindowHandler = new MapWindowHandler(this.tileCache);
+
     private Undertow server;
 
+    public @NotNull TileChangeFeed getTileChangeFeed() {
+        return this.tileChangeFeed;
+    }
+
+    public @NotNull TileCache getTileCache() {
+        return this.tileCache;
+    }
+
     public void startServer() {
         if (!Config.HTTPD_ENABLED) {
             Logger.info(Lang.HTTPD_DISABLED);
             return;
         }
 
+        this.tileCache.resize();
+
         try {
             ResourceManager resourceManager = PathResourceManager.builder()
                     .setBase(Paths.get(FileUtil.getWebDir().toFile().getAbsolutePath()))
@@ -67,6 +84,9 @@ public class HttpdServer {
                     .build();
             ResourceHandler resourceHandler = new ResourceHandler(resourceManager, exchange -> {
                 String url = exchange.getRelativePath();
+                if (url.startsWith("/tiles") && url.endsWith("." + Config.WEB_TILE_FORMAT)) {
+                    this.renderOnView.request(url);
+                }
                 if (url.startsWith("/tiles") && (url.endsWith(".png") || url.endsWith(".gz"))) {
                     exchange.setStatusCode(200);
                     return;
@@ -76,6 +96,7 @@ public class HttpdServer {
                     UndertowLogger.PREDICATE_LOGGER.debugf("Response code set to [%s] for %s.", 404, exchange);
                 }
             });
+            CachedTileHandler tileHandler = new CachedTileHandler(this.tileCache, resourceHandler);
 
             LogFilter.HIDE_UNDERTOW_LOGS = true;
             this.server = Undertow.builder()
@@ -83,13 +104,36 @@ public class HttpdServer {
                     .addHttpListener(Config.HTTPD_PORT, Config.HTTPD_BIND)
                     .setHandler(exchange -> {
                         if (exchange.getRelativePath().startsWith("/tiles")) {
+                            // missing tiles are answered with an empty body, those must never stick
                             exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "max-age=0, must-revalidate, no-cache");
+                            if (exchange.getQueryParameters().containsKey("v")) {
+                                // versioned tile urls (see TileManifest) never change content,
+                                // once there is content to cache
+                                exchange.addResponseCommitListener(response -> {
+                                    int status = response.getStatusCode();
+                                    if (status >= 200 && status < 300 && response.getResponseContentLength() > 0) {
+                                        response.getResponseHeaders().put(Headers.CACHE_CONTROL, "public, max-age=31536000, immutable");
+                                    }
+                                });
+                            }
+                        }
+                        if (exchange.getRelativePath().equals(TileChangeFeed.PATH)) {
+                            this.tileChangeFeed.handleRequest(exchange);
+                            return;
+                        }
+                        if (Config.HTTPD_BATCH_TILES && exchange.getRelativePath().equals(TileBatchHandler.PATH)) {
+                            this.tileBatchHandler.handleRequest(exchange);
+                            return;
+                        }
+                        if (Config.HTTPD_MAP_WINDOWS && exchange.getRelativePath().equals(MapWindowHandler.PATH)) {
+                            this.mapWindowHandler.handleRequest(exchange);
+                            return;
                         }
                         if (exchange.getRelativePath().endsWith(".gz")) {
                             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
                             exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, "gzip");
                         }
-                        resourceHandler.handleRequest(exchange);
+                        tileHandler.handleRequest(exchange);
                     })
                     .build();
             this.server.start();
@@ -121,6 +165,7 @@ public class HttpdServer {
         LogFilter.HIDE_UNDERTOW_LOGS = false;
 
         this.server = null;
+        this.tileCache.clear();
         Logger.info(Lang.HTTPD_STOPPED);
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ETag;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import net.pl3x.map.core.configuration.Config;
+import net.pl3x.map.core.image.io.IO;
+import net.pl3x.map.core.util.FileUtil;
+import net.pl3x.map.core.util.Mathf;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serves the 128x128 pixel window shown by a vanilla map item, composited from tiles.
+ * <p>
+ * A request to {@code /tiles/window?world=<world>&renderer=<renderer>&scale=<scale>&x=<x>&z=<z>}
+ * samples a pixel every {@code 2^scale} blocks, starting at block {@code x, z}. Tiles are read
+ * from the zoom level matching the map's scale, as far as the world is zoomed out. The response
+ * is a png with an ETag built from its source tiles, so unchanged windows are answered with 304.
+ */
+public class MapWindowHandler implements HttpHandler {
+    public static final String PATH = "/tiles/window";
+
+    private static final int SIZE = 128;
+    private static final int MAX_SCALE = 4;
+
+    private final TileCache tileCache;
+
+    public MapWindowHandler(@NotNull TileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
+    @Override
+    public void handleRequest(@NotNull HttpServerExchange exchange) throws IOException {
+        if (exchange.isInIoThread()) {
+            // reading and compositing tiles blocks, move off the io thread
+            exchange.dispatch(this);
+            return;
+        }
+
+        String worldName = QueryParams.get(exchange, "world");
+        String renderer = QueryParams.get(exchange, "renderer");
+        Integer scale = parseInt(QueryParams.get(exchange, "scale"));
+        Integer x = parseInt(QueryParams.get(exchange, "x"));
+        Integer z = parseInt(QueryParams.get(exchange, "z"));
+        if (!QueryParams.isName(worldName) || !QueryParams.isName(renderer) || x == null || z == null
+                || scale == null || scale < 0 || scale > MAX_SCALE) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.endExchange();
+            return;
+        }
+
+        World world = QueryParams.getWorld(worldName);
+        if (world == null) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            exchange.endExchange();
+            return;
+        }
+
+        int zoom = Math.min(scale, world.getConfig().ZOOM_MAX_OUT);
+        int step = 1 << scale;
+        int minTileX = x >> zoom >> 9;
+        int minTileZ = z >> zoom >> 9;
+        int maxTileX = (x + (SIZE - 1) * step) >> zoom >> 9;
+        int maxTileZ = (z + (SIZE - 1) * step) >> zoom >> 9;
+
+        // the window only changes when one of its tiles does
+        Path dir = FileUtil.getTilesDir().resolve(worldName).resolve(Integer.toString(zoom)).resolve(renderer);
+        Map<Long, TileCache.Tile> tiles = new HashMap<>();
+        StringBuilder etags = new StringBuilder();
+        for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+            for (int tileZ = minTileZ; tileZ <= maxTileZ; tileZ++) {
+                TileCache.Tile tile = this.tileCache.get(dir.resolve(tileX + "_" + tileZ + "." + Config.WEB_TILE_FORMAT));
+                etags.append(tile == null ? "-" : tile.etag().getTag()).append(',');
+                if (tile != null) {
+                    tiles.put(Mathf.asLong(tileX, tileZ), tile);
+                }
+            }
+        }
+        ETag etag = new ETag(false, zoom + "-" + Integer.toHexString(etags.toString().hashCode()));
+        exchange.getResponseHeaders().put(Headers.ETAG, etag.toString());
+        if (!ETagUtils.handleIfNoneMatch(exchange, etag, true)) {
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+
+        IO.Type io = IO.get(Config.WEB_TILE_FORMAT);
+        Map<Long, BufferedImage> images = new HashMap<>();
+        for (Map.Entry<Long, TileCache.Tile> entry : tiles.entrySet()) {
+            BufferedImage image = io.read(entry.getValue().bytes());
+            if (image != null) {
+                images.put(entry.getKey(), image);
+            }
+        }
+
+        BufferedImage window = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int px = 0; px < SIZE; px++) {
+            int tileX = (x + px * step) >> zoom;
+            for (int pz = 0; pz < SIZE; pz++) {
+                int tileZ = (z + pz * step) >> zoom;
+                BufferedImage image = images.get(Mathf.asLong(tileX >> 9, tileZ >> 9));
+                if (image != null) {
+                    window.setRGB(px, pz, image.getRGB(tileX & 511, tileZ & 511));
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(window, "png", out);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "image/png");
+        exchange.getResponseSender().send(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private @Nullable Integer parseInt(@Nullable String param) {
+        try {
+            return param == null ? null : Integer.parseInt(param);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import io.undertow.server.HttpServerExchange;
+import java.util.Deque;
+import java.util.regex.Pattern;
+import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads query parameters of the httpd handlers.
+ */
+final class QueryParams {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.\\-]+");
+
+    private QueryParams() {
+    }
+
+    /**
+     * Get the first value of a query parameter.
+     *
+     * @param exchange http exchange
+     * @param name     parameter name
+     * @return parameter value, or null if not set
+     */
+    static @Nullable String get(@NotNull HttpServerExchange exchange, @NotNull String name) {
+        Deque<String> values = exchange.getQueryParameters().get(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+
+    /**
+     * Check if a parameter is a world or renderer name that stays inside the tiles directory.
+     *
+     * @param name parameter value
+     * @return true if it is a safe name
+     */
+    static boolean isName(@Nullable String name) {
+        return name != null && !name.contains("..") && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Get the enabled world a world parameter names, as used for its tiles directory.
+     *
+     * @param name parameter value
+     * @return world, or null if there is no such enabled world
+     */
+    static @Nullable World getWorld(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        for (World world : Pl3xMap.api().getWorldRegistry()) {
+            if (world.isEnabled() && world.getTilesDirectory().getFileName().toString().equals(name)) {
+                return world;
+            }
+        }
+        return null;
+    }
+}
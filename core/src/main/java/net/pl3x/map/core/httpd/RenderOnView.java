@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.configuration.Config;
+import net.pl3x.map.core.markers.Point;
+import net.pl3x.map.core.renderer.task.RegionPriority;
+import net.pl3x.map.core.renderer.task.RegionQueue;
+import net.pl3x.map.core.util.FileUtil;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Renders regions once someone looks at them on the map, instead of all up front.
+ * <p>
+ * With {@link Config#RENDER_ON_VIEW} enabled, a request for a tile that does not exist queues
+ * the regions under it that have a region file and were not rendered since it last changed,
+ * ahead of everything else. The webmap picks up the tile from the {@link TileChangeFeed}
+ * as soon as it is written. Looking for region files happens off the web server's threads,
+ * and a tile asked for again within a short while is not looked at twice.
+ */
+public class RenderOnView {
+    private static final Pattern TILE = Pattern.compile("^/tiles/([^/]+)/(\\d+)/[^/]+/(-?\\d+)_(-?\\d+)\\.[^/.]+$");
+    private static final long REQUEST_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_REQUESTS = 4096;
+
+    private final ExecutorService executor = Pl3xMap.ThreadFactory.createService("Pl3xMap-RenderOnView");
+    private final Map<@NotNull String, @NotNull Long> requested = new ConcurrentHashMap<>();
+
+    /**
+     * Check if regions render on view. Without the internal web server nobody can ask for
+     * missing tiles, so {@link Config#RENDER_ON_VIEW} is ignored then.
+     *
+     * @return true if regions render on view
+     */
+    public static boolean isEnabled() {
+        return Config.RENDER_ON_VIEW && Config.HTTPD_ENABLED;
+    }
+
+    /**
+     * Queue the regions under a missing tile.
+     *
+     * @param url tile url, as {@code /tiles/<world>/<zoom>/<renderer>/<x>_<z>.<format>}
+     */
+    public void request(@NotNull String url) {
+        if (!isEnabled()) {
+            return;
+        }
+        Matcher matcher = TILE.matcher(url);
+        if (!matcher.matches()) {
+            return;
+        }
+        try {
+            request(matcher.group(1),
+                    Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)),
+                    Integer.parseInt(matcher.group(4)));
+        } catch (NumberFormatException ignore) {
+            // out of range, not a tile we could have rendered
+        }
+    }
+
+    /**
+     * Queue the regions under a missing tile.
+     *
+     * @param worldName world name, as used for its tiles directory
+     * @param zoom      zoom level
+     * @param tileX     tile x coordinate at this zoom level
+     * @param tileZ     tile z coordinate at this zoom level
+     */
+    public void request(@NotNull String worldName, int zoom, int tileX, int tileZ) {
+        if (!isEnabled() || !isNewRequest(worldName + "/" + zoom + "/" + tileX + "_" + tileZ)) {
+            return;
+        }
+        // a tile at zoom level 6 covers 4096 region files, look for them off the io thread
+        this.executor.execute(() -> queue(worldName, zoom, tileX, tileZ));
+    }
+
+    private boolean isNewRequest(@NotNull String tile) {
+        long now = System.currentTimeMillis();
+        if (this.requested.size() >= MAX_REQUESTS) {
+            this.requested.values().removeIf(time -> now - time > REQUEST_INTERVAL);
+            if (this.requested.size() >= MAX_REQUESTS) {
+                // flooded with requests, the tile is asked for again next time it is viewed
+                return false;
+            }
+        }
+        Long last = this.requested.putIfAbsent(tile, now);
+        return last == null || (now - last > REQUEST_INTERVAL && this.requested.replace(tile, last, now));
+    }
+
+    private void queue(@NotNull String worldName, int zoom, int tileX, int tileZ) {
+        World world = QueryParams.getWorld(worldName);
+        if (world == null || zoom < 0 || zoom > world.getConfig().ZOOM_MAX_OUT) {
+            return;
+        }
+
+        // a tile covers 2^zoom x 2^zoom regions
+        List<Path> files = new ArrayList<>();
+        for (int x = tileX << zoom; x < (tileX + 1) << zoom; x++) {
+            for (int z = tileZ << zoom; z < (tileZ + 1) << zoom; z++) {
+                Path file = world.getRegionDirectory().resolve("r." + x + "." + z + ".mca");
+                if (Files.exists(file)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        RegionQueue queue = Pl3xMap.api().getRegionProcessor().getQueue(world);
+        for (Point region : FileUtil.regionPathsToPoints(world, files, false)) {
+            queue.request(region, RegionPriority.VIEWED);
+        }
+    }
+}
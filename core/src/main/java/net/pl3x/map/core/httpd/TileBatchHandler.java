@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.pl3x.map.core.configuration.Config;
+import net.pl3x.map.core.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serves many tiles of one world, renderer and zoom level in a single response.
+ * <p>
+ * A request to {@code /tiles/batch?world=<world>&renderer=<renderer>&zoom=<zoom>&tiles=<x>_<z>,<x>_<z>,...}
+ * is answered with each requested tile in order, as a 4 byte big-endian length followed
+ * by that many bytes of image data. Tiles that do not exist have a length of 0.
+ */
+public class TileBatchHandler implements HttpHandler {
+    public static final String PATH = "/tiles/batch";
+
+    private static final int MAX_TILES = 64;
+
+    private final TileCache tileCache;
+    private final RenderOnView renderOnView;
+
+    public TileBatchHandler(@NotNull TileCache tileCache, @NotNull RenderOnView renderOnView) {
+        this.tileCache = tileCache;
+        this.renderOnView = renderOnView;
+    }
+
+    @Override
+    public void handleRequest(@NotNull HttpServerExchange exchange) {
+        if (exchange.isInIoThread()) {
+            // reading tiles from disk blocks, move off the io thread
+            exchange.dispatch(this);
+            return;
+        }
+
+        Path dir = getDirectory(exchange);
+        String tiles = QueryParams.get(exchange, "tiles");
+        if (dir == null || tiles == null) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.endExchange();
+            return;
+        }
+        String world = QueryParams.get(exchange, "world");
+        int zoom = Integer.parseInt(QueryParams.get(exchange, "zoom")); // already checked by getDirectory
+
+        List<byte[]> images = new ArrayList<>();
+        int size = 0;
+        for (String tile : tiles.split(",", MAX_TILES + 1)) {
+            if (images.size() == MAX_TILES) {
+                break;
+            }
+            byte[] bytes = null;
+            String[] split = tile.split("_");
+            try {
+                int x = Integer.parseInt(split[0]);
+                int z = Integer.parseInt(split[1]);
+                TileCache.Tile cached = this.tileCache.get(dir.resolve(x + "_" + z + "." + Config.WEB_TILE_FORMAT));
+                if (cached == null) {
+                    this.renderOnView.request(world, zoom, x, z);
+                } else {
+                    bytes = cached.bytes();
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ignore) {
+                // bad coordinates, send as missing
+            }
+            images.add(bytes);
+            size += 4 + (bytes == null ? 0 : bytes.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] bytes : images) {
+            if (bytes == null) {
+                buffer.putInt(0);
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+        buffer.flip();
+
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/octet-stream");
+        exchange.getResponseSender().send(buffer);
+    }
+
+    private @Nullable Path getDirectory(@NotNull HttpServerExchange exchange) {
+        String world = QueryParams.get(exchange, "world");
+        String renderer = QueryParams.get(exchange, "renderer");
+        String zoom = QueryParams.get(exchange, "zoom");
+        if (!QueryParams.isName(world) || !QueryParams.isName(renderer) || zoom == null) {
+            return null;
+        }
+        try {
+            return FileUtil.getTilesDir()
+                    .resolve(world)
+                    .resolve(Integer.toString(Integer.parseInt(zoom)))
+                    .resolve(renderer);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
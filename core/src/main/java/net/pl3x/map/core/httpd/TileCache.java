@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.undertow.util.ETag;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import net.pl3x.map.core.configuration.Config;
+import net.pl3x.map.core.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * In-memory cache of recently served tile files, bounded by their total size in bytes.
+ * <p>
+ * Each cached tile keeps its ETag, computed once when the tile is read from disk,
+ * so cached tiles are served without touching the filesystem at all.
+ */
+public class TileCache {
+    private final Cache<@NotNull Path, @NotNull Tile> cache = Caffeine.newBuilder()
+            .maximumWeight(0)
+            .weigher((Path path, Tile tile) -> tile.bytes().length)
+            .build();
+
+    /**
+     * Resize the cache to the currently configured size.
+     */
+    public void resize() {
+        this.cache.policy().eviction().ifPresent(eviction ->
+                eviction.setMaximum(Math.max(0, Config.HTTPD_TILE_CACHE_SIZE) * 1024L * 1024L));
+    }
+
+    /**
+     * Get a cached tile without going to disk.
+     *
+     * @param path tile file
+     * @return cached tile, or null if not cached
+     */
+    public @Nullable Tile getIfPresent(@NotNull Path path) {
+        return this.cache.getIfPresent(normalize(path));
+    }
+
+    /**
+     * Get a tile, reading it from disk if it is not cached yet.
+     *
+     * @param path tile file
+     * @return tile, or null if the tile does not exist
+     */
+    public @Nullable Tile get(@NotNull Path path) {
+        return this.cache.get(normalize(path), this::read);
+    }
+
+    /**
+     * Reread a tile from disk after it was rewritten, but only if it is cached.
+     * <p>
+     * This keeps popular tiles in memory across updates instead of dropping them.
+     *
+     * @param path tile file
+     */
+    public void refresh(@NotNull Path path) {
+        this.cache.asMap().computeIfPresent(normalize(path), (key, tile) -> read(key));
+    }
+
+    /**
+     * Drop a tile from the cache, so the next request reads it from disk again.
+     *
+     * @param path tile file
+     */
+    public void invalidate(@NotNull Path path) {
+        this.cache.invalidate(normalize(path));
+    }
+
+    /**
+     * Drop all tiles from the cache.
+     */
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    private @NotNull Path normalize(@NotNull Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private @Nullable Tile read(@NotNull Path path) {
+        try {
+            if (!Config.HTTPD_FOLLOW_SYMLINKS && isLinked(path)) {
+                // the resource manager refuses these too
+                return null;
+            }
+            // same etag as the resource manager gives files served from disk
+            BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
+            ETag etag = new ETag(false, Long.toString(attr.lastModifiedTime().toMillis()));
+            return new Tile(Files.readAllBytes(path), etag);
+        } catch (NoSuchFileException ignore) {
+            // not rendered (yet)
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private boolean isLinked(@NotNull Path path) throws IOException {
+        Path tilesDir = FileUtil.getTilesDir().toRealPath();
+        return Files.isSymbolicLink(path) || !path.toRealPath().startsWith(tilesDir);
+    }
+
+    public record Tile(byte @NotNull [] bytes, @NotNull ETag etag) {
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.util.StatusCodes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rolling log of tile changes, served to the webmap as a long-poll endpoint.
+ * <p>
+ * A request to {@code /tiles/changes?world=<world>&since=<seq>} is answered as soon as
+ * a tile of that world changes after {@code since}, or with no changes after a timeout.
+ * The response holds the newest sequence number to poll with next, and each change as
+ * {@code [renderer, zoom, x, z, version]}. Sequence numbers start over with every server
+ * start, so the response also holds an {@code epoch} for the webmap to send back. If
+ * {@code since} is no longer in the log, or is from another epoch, the response is flagged
+ * as {@code reset} and the webmap falls back to its tile manifests.
+ */
+public class TileChangeFeed implements HttpHandler {
+    public static final String PATH = "/tiles/changes";
+
+    static final int CAPACITY = 8192;
+    private static final long TIMEOUT = 25; // seconds
+    private static final int MAX_WAITERS = 1024;
+
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private final Change[] changes = new Change[CAPACITY];
+    private final List<@NotNull Waiter> waiters = new ArrayList<>();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private long seq;
+
+    /**
+     * Append a tile change to the log and wake up anyone waiting on that world.
+     *
+     * @param world    world name (as used by the webmap)
+     * @param renderer renderer key
+     * @param zoom     zoom level
+     * @param x        tile x coordinate at this zoom level
+     * @param z        tile z coordinate at this zoom level
+     * @param version  tile's new version
+     */
+    public void add(@NotNull String world, @NotNull String renderer, int zoom, int x, int z, long version) {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            this.seq++;
+            this.changes[index(this.seq)] = new Change(this.seq, world, renderer, zoom, x, z, version);
+            Iterator<Waiter> iter = this.waiters.iterator();
+            while (iter.hasNext()) {
+                Waiter waiter = iter.next();
+                if (waiter.world().equals(world)) {
+                    iter.remove();
+                    ready.add(waiter);
+                }
+            }
+        }
+        ready.forEach(this::respond);
+    }
+
+    @Override
+    public void handleRequest(@NotNull HttpServerExchange exchange) {
+        String world = QueryParams.get(exchange, "world");
+        if (world == null) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.endExchange();
+            return;
+        }
+        long since = parseSince(QueryParams.get(exchange, "since"));
+        Waiter waiter = new Waiter(exchange, world, since, QueryParams.get(exchange, "epoch"));
+        // hold on to the exchange without blocking the io thread
+        exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+            synchronized (this) {
+                if (waiter.since() >= 0 && !isReset(waiter.since(), waiter.epoch()) && collect(world, waiter.since()).isEmpty()) {
+                    if (this.waiters.size() >= MAX_WAITERS) {
+                        // too many open polls, let the webmap fall back to its tile manifests for a while
+                        exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+                        exchange.endExchange();
+                        return;
+                    }
+                    this.waiters.add(waiter);
+                    exchange.getIoThread().executeAfter(() -> {
+                        boolean waiting;
+                        synchronized (this) {
+                            waiting = this.waiters.remove(waiter);
+                        }
+                        if (waiting) {
+                            respond(waiter);
+                        }
+                    }, TIMEOUT, TimeUnit.SECONDS);
+                    return;
+                }
+            }
+            respond(waiter);
+        });
+    }
+
+    @NotNull String getEpoch() {
+        return this.epoch;
+    }
+
+    private long parseSince(@Nullable String param) {
+        try {
+            return param == null ? -1 : Long.parseLong(param);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void respond(@NotNull Waiter waiter) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        synchronized (this) {
+            boolean reset = isReset(waiter.since(), waiter.epoch());
+            json.put("epoch", this.epoch);
+            json.put("seq", this.seq);
+            json.put("reset", reset);
+            json.put("changes", reset ? List.of() : collect(waiter.world(), waiter.since()));
+        }
+        try {
+            HttpServerExchange exchange = waiter.exchange();
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+            exchange.getResponseSender().send(GSON.toJson(json));
+        } catch (Throwable ignore) {
+            // client went away while waiting
+        }
+    }
+
+    synchronized boolean isReset(long since, @Nullable String epoch) {
+        if (since < 0) {
+            return false;
+        }
+        // from before a server restart, from the future, or too old to still be in the log
+        return !this.epoch.equals(epoch) || since > this.seq || this.seq - since > CAPACITY;
+    }
+
+    synchronized @NotNull List<@NotNull Object> collect(@NotNull String world, long since) {
+        List<Object> list = new ArrayList<>();
+        if (since < 0) {
+            return list;
+        }
+        for (long i = Math.max(since + 1, this.seq - CAPACITY + 1); i <= this.seq; i++) {
+            Change change = this.changes[index(i)];
+            if (change != null && change.seq() == i && change.world().equals(world)) {
+                list.add(List.of(change.renderer(), change.zoom(), change.x(), change.z(), change.version()));
+            }
+        }
+        return list;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % CAPACITY);
+    }
+
+    private record Change(long seq, @NotNull String world, @NotNull String renderer, int zoom, int x, int z, long version) {
+    }
+
+    private record Waiter(@NotNull HttpServerExchange exchange, @NotNull String world, long since, @Nullable String epoch) {
+    }
+}
@@ -33,11 +33,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import net.pl3x.map.core.Keyed;
+import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.configuration.Config;
 import net.pl3x.map.core.image.io.IO;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Colors;
 import net.pl3x.map.core.util.FileUtil;
+import net.pl3x.map.core.util.Mathf;
 import net.pl3x.map.core.world.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -82,16 +84,28 @@ public class TileImage extends Keyed {
         if (!this.written) {
             return; // nothing written, nothing to save
         }
+
+        // if this region's pixels are identical to the last save, every zoom level would merge to
+        // the same pixels as before, so there is no need to read, encode, or write those tiles again
+        long hash = hashPixels(this.pixels);
+        long regionPos = Mathf.asLong(this.region);
+        Long lastHash = this.world.getTileHashState().get(getKey(), regionPos);
+        boolean unchanged = lastHash != null && lastHash == hash;
+        boolean failed = false;
+
         for (int zoom = 0; zoom <= this.world.getConfig().ZOOM_MAX_OUT; zoom++) {
             Path dirPath = this.world.getTilesDirectory().resolve(String.format(DIR_PATH, zoom, getKey()));
 
             // create directories if they don't exist
             FileUtil.createDirs(dirPath);
 
-            Path filePath = dirPath.resolve(String.format(FILE_PATH,
-                    this.region.x() >> zoom,
-                    this.region.z() >> zoom,
-                    this.io.getKey()));
+            int tileX = this.region.x() >> zoom;
+            int tileZ = this.region.z() >> zoom;
+            Path filePath = dirPath.resolve(String.format(FILE_PATH, tileX, tileZ, this.io.getKey()));
+
+            if (unchanged && Files.exists(filePath)) {
+                continue; // nothing changed, keep the existing tile (and its modified time)
+            }
 
             ReadWriteLock lock = FILE_LOCKS.computeIfAbsent(filePath, k -> new ReentrantReadWriteLock(true));
             lock.writeLock().lock();
@@ -106,12 +120,36 @@ public class TileImage extends Keyed {
 
                 // finally, save buffer to disk
                 this.io.write(filePath, buffer);
+                Pl3xMap.api().getHttpdServer().getTileCache().refresh(filePath);
+
+                // let the webmap know this tile changed
+                this.world.getTileManifest().update(getKey(), zoom, tileX, tileZ);
             } catch (Throwable t) {
+                failed = true;
                 t.printStackTrace();
             }
 
             lock.writeLock().unlock();
         }
+
+        if (!failed) {
+            this.world.getTileHashState().set(getKey(), regionPos, hash);
+        }
+    }
+
+    static long hashPixels(int @NotNull [] pixels) {
+        // xxhash64 style mixing over the raw pixel buffer
+        long hash = 0x27D4EB2F165667C5L;
+        for (int pixel : pixels) {
+            hash ^= (pixel & 0xFFFFFFFFL) * 0x9E3779B185EBCA87L;
+            hash = Long.rotateLeft(hash, 23) * 0xC2B2AE3D27D4EB4FL + 0x165667B19E3779F9L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 29;
+        hash *= 0x165667B19E3779F9L;
+        hash ^= hash >>> 32;
+        return hash;
     }
 
     private @NotNull BufferedImage getBuffer(@NotNull Path path) throws IOException {
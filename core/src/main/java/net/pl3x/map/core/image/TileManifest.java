@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.image;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.log.Logger;
+import net.pl3x.map.core.util.FileUtil;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Per-world manifest of tile versions.
+ * <p>
+ * Every time a tile is written it is given a new version. Versions are published
+ * in small gzipped json files, each covering a group of 16x16 tiles of a single
+ * renderer and zoom level, so only the groups that actually changed get rewritten.
+ * The webmap appends the version to tile urls, which lets the tiles themselves be
+ * cached forever, and only refetches tiles whose version changed.
+ */
+public class TileManifest {
+    public static final int GROUP_SHIFT = 4;
+    public static final String FILE_PATH = "manifest/%d_%d.gz";
+
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final TypeToken<Map<String, Long>> TOKEN = new TypeToken<>() {
+    };
+
+    private final World world;
+    private final Map<@NotNull Group, @NotNull Map<@NotNull String, @NotNull Long>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    public TileManifest(@NotNull World world) {
+        this.world = world;
+    }
+
+    /**
+     * Give a tile a new version.
+     * <p>
+     * The change is also published to the webmap's live tile change feed.
+     *
+     * @param renderer renderer key
+     * @param zoom     zoom level
+     * @param tileX    tile x coordinate at this zoom level
+     * @param tileZ    tile z coordinate at this zoom level
+     * @return the tile's new version
+     */
+    public long update(@NotNull String renderer, int zoom, int tileX, int tileZ) {
+        long version = nextVersion(this.lastVersion, System.currentTimeMillis());
+        Group group = new Group(renderer, zoom, tileX >> GROUP_SHIFT, tileZ >> GROUP_SHIFT);
+        this.pending.compute(group, (k, versions) -> {
+            if (versions == null) {
+                versions = new HashMap<>();
+            }
+            versions.put(tileX + "_" + tileZ, version);
+            return versions;
+        });
+        Pl3xMap.api().getHttpdServer().getTileChangeFeed().add(this.world.getName().replace(":", "-"), renderer, zoom, tileX, tileZ, version);
+        return version;
+    }
+
+    /**
+     * Write all pending version changes to their manifest files.
+     */
+    public synchronized void flush() {
+        for (Group group : this.pending.keySet()) {
+            Map<String, Long> versions = this.pending.remove(group);
+            if (versions == null || versions.isEmpty()) {
+                continue;
+            }
+            Path file = this.world.getTilesDirectory()
+                    .resolve(String.format(TileImage.DIR_PATH, group.zoom(), group.renderer()))
+                    .resolve(String.format(FILE_PATH, group.x(), group.z()));
+            try {
+                Map<String, Long> manifest = read(file);
+                manifest.putAll(versions);
+                FileUtil.saveGzip(GSON.toJson(manifest), file);
+            } catch (Throwable t) {
+                Logger.warn("Could not write tile manifest: " + file);
+                t.printStackTrace();
+            }
+        }
+    }
+
+    static long nextVersion(@NotNull AtomicLong lastVersion, long now) {
+        // current time, but strictly increasing so no two writes ever share a version
+        return lastVersion.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+    }
+
+    private @NotNull Map<@NotNull String, @NotNull Long> read(@NotNull Path file) {
+        Map<String, Long> manifest = new LinkedHashMap<>();
+        try {
+            if (Files.exists(file) && Files.size(file) > 0) {
+                Map<String, Long> existing = GSON.fromJson(FileUtil.readGzip(file), TOKEN);
+                if (existing != null) {
+                    manifest.putAll(existing);
+                }
+            }
+        } catch (IOException | RuntimeException ignore) {
+            // silently fail - versions are rebuilt as tiles get written again
+        }
+        return manifest;
+    }
+
+    private record Group(@NotNull String renderer, int zoom, int x, int z) {
+    }
+}
@@ -24,7 +24,9 @@
 package net.pl3x.map.core.image.io;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
@@ -91,22 +93,38 @@ public abstract class IO {
         }
 
         public @Nullable BufferedImage read(@NotNull Path path) {
-            BufferedImage buffer = null;
+            try (InputStream in = Files.newInputStream(path)) {
+                return read(in);
+            } catch (IOException e) {
+                Logger.warn("Could not read tile image: " + path);
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        public @Nullable BufferedImage read(byte @NotNull [] bytes) {
+            try {
+                return read(new ByteArrayInputStream(bytes));
+            } catch (IOException e) {
+                Logger.warn("Could not read tile image");
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        private @Nullable BufferedImage read(@NotNull InputStream stream) throws IOException {
             ImageReader reader = null;
-            try (ImageInputStream in = ImageIO.createImageInputStream(Files.newInputStream(path))) {
+            try (ImageInputStream in = ImageIO.createImageInputStream(stream)) {
                 reader = ImageIO.getImageReadersBySuffix(getKey()).next();
                 reader.setInput(in, false, true);
-                buffer = reader.read(0);
+                BufferedImage buffer = reader.read(0);
                 in.flush();
-            } catch (IOException e) {
-                Logger.warn("Could not read tile image: " + path);
-                e.printStackTrace();
+                return buffer;
             } finally {
                 if (reader != null) {
                     reader.dispose();
                 }
             }
-            return buffer;
         }
 
         public void write(@NotNull Path path, @NotNull BufferedImage buffer) {
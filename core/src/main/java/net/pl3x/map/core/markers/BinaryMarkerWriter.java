@@ -0,0 +1,472 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.markers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.pl3x.map.core.markers.marker.Marker;
+import net.pl3x.map.core.markers.option.Options;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Encodes a layer's markers into a compact binary format, read by the webmap's {@code BinaryMarkerReader.ts}.
+ * <p>
+ * Every string (keys, types, option values) is stored once in a string table and referenced by index,
+ * options blocks are stored once in an options table (the same one as the json marker files), and
+ * numbers are written as zigzag varints. Arrays of points and arrays of integers are delta coded, so the long outlines of
+ * polygons and polylines shrink to a couple of bytes per point.
+ * <p>
+ * Markers are streamed straight from their {@link JsonSerializable#writeJson(JsonWriterWrapper)}, so no json string
+ * or tree is built for the layer. Only the array or object being written is held in memory until it is complete.
+ * <p>
+ * Layout: magic, version, string table, options table, then each marker as its type, data and options.
+ */
+public class BinaryMarkerWriter {
+    public static final byte[] MAGIC = {'P', 'M', 'B'};
+    public static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INT = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final int OBJECT = 7;
+    private static final int POINTS = 8;
+    private static final int INTS = 9;
+
+    // array with no elements yet
+    private static final int UNSET = -1;
+
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    private final Map<@NotNull String, @NotNull Integer> strings = new LinkedHashMap<>();
+    private final ValueWriter writer = new ValueWriter();
+    private final JsonWriterWrapper wrapper = new JsonWriterWrapper(this.writer);
+
+    private BinaryMarkerWriter() {
+    }
+
+    /**
+     * Encode markers in the same shape as the json marker files ({@code {options: [...], markers: [{type, data, options}, ...]}}).
+     *
+     * @param styles  options table, each options block mapped to its index
+     * @param markers markers to encode
+     * @return encoded markers
+     * @throws IOException if the markers could not be encoded
+     */
+    public static byte @NotNull [] encode(@NotNull Map<@NotNull Options, @NotNull Integer> styles, @NotNull List<@NotNull Marker<?>> markers) throws IOException {
+        return new BinaryMarkerWriter().write(styles, markers);
+    }
+
+    private byte @NotNull [] write(@NotNull Map<@NotNull Options, @NotNull Integer> styles, @NotNull List<@NotNull Marker<?>> markers) throws IOException {
+        // tables go in front, so fill the string table before writing it
+        ByteArrayOutputStream optionBytes = new ByteArrayOutputStream();
+        DataOutputStream optionOut = new DataOutputStream(optionBytes);
+        writeVarInt(optionOut, styles.size());
+        for (Options options : styles.keySet()) {
+            writeValue(optionOut, options);
+        }
+
+        ByteArrayOutputStream markerBytes = new ByteArrayOutputStream();
+        DataOutputStream markerOut = new DataOutputStream(markerBytes);
+        writeVarInt(markerOut, markers.size());
+        for (Marker<?> marker : markers) {
+            writeVarInt(markerOut, string(marker.getType()));
+            writeValue(markerOut, marker);
+            Options options = marker.getOptions();
+            writeVarInt(markerOut, options == null ? 0 : styles.get(options) + 1);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, this.strings.size());
+        for (String str : this.strings.keySet()) {
+            byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, utf8.length);
+            out.write(utf8);
+        }
+        optionBytes.writeTo(out);
+        markerBytes.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeValue(@NotNull DataOutputStream out, @NotNull JsonSerializable value) throws IOException {
+        this.writer.target = out;
+        value.writeJson(this.wrapper);
+    }
+
+    private int string(@NotNull String str) {
+        return this.strings.computeIfAbsent(str, k -> this.strings.size());
+    }
+
+    private static void writeSignedVarInt(@NotNull DataOutputStream out, long value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarInt(@NotNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * An array or object being written.
+     * <p>
+     * Arrays hold on to their elements as plain numbers while they are all integers, or all
+     * {@code {x, z}} points, so they can be delta coded once complete. The first element that
+     * does not fit writes them out as regular values. Objects inside such an array do the same
+     * with their members, while they may still turn out to be a point.
+     */
+    private static final class Frame {
+        private final @Nullable Frame parent;
+        private final boolean array;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+        // held on to points that were written z first, to write them out the same way
+        private final BitSet zFirst = new BitSet();
+
+        private int type;
+        private int size;
+        private long[] values = new long[16];
+        private int count;
+        private @Nullable String name;
+        // first member of an object that may still be a point, x or z
+        private @Nullable String first;
+
+        private Frame(@Nullable Frame parent, boolean array, int type) {
+            this.parent = parent;
+            this.array = array;
+            this.type = type;
+        }
+
+        private void add(long value) {
+            if (this.count == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.count * 2);
+            }
+            this.values[this.count++] = value;
+        }
+    }
+
+    /**
+     * Json writer that encodes straight into the binary format instead of writing text.
+     */
+    private final class ValueWriter extends JsonWriter {
+        private DataOutputStream target;
+        private Frame frame;
+
+        private ValueWriter() {
+            super(Writer.nullWriter());
+        }
+
+        @Override
+        public @NotNull JsonWriter beginArray() throws IOException {
+            next(ARRAY, 0);
+            this.frame = new Frame(this.frame, true, UNSET);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter endArray() throws IOException {
+            Frame frame = pop();
+            DataOutputStream out = out(frame);
+            if (frame.type == INTS) {
+                out.writeByte(INTS);
+                writeVarInt(out, frame.size);
+                long last = 0;
+                for (int i = 0; i < frame.count; i++) {
+                    writeSignedVarInt(out, frame.values[i] - last);
+                    last = frame.values[i];
+                }
+            } else if (frame.type == POINTS) {
+                out.writeByte(POINTS);
+                writeVarInt(out, frame.size);
+                long lastX = 0, lastZ = 0;
+                for (int i = 0; i < frame.count; i += 2) {
+                    writeSignedVarInt(out, frame.values[i] - lastX);
+                    writeSignedVarInt(out, frame.values[i + 1] - lastZ);
+                    lastX = frame.values[i];
+                    lastZ = frame.values[i + 1];
+                }
+            } else {
+                out.writeByte(ARRAY);
+                writeVarInt(out, frame.size);
+                frame.bytes.writeTo(out);
+            }
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter beginObject() throws IOException {
+            // objects that start out buffered may still be a point
+            boolean point = next(OBJECT, 0) == null;
+            this.frame = new Frame(this.frame, false, point ? POINTS : OBJECT);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter endObject() throws IOException {
+            Frame frame = pop();
+            if (frame.type == POINTS) {
+                if (frame.count == 2 && frame.parent != null) {
+                    boolean zFirst = "z".equals(frame.first);
+                    frame.parent.zFirst.set(frame.parent.count / 2, zFirst);
+                    frame.parent.add(frame.values[zFirst ? 1 : 0]);
+                    frame.parent.add(frame.values[zFirst ? 0 : 1]);
+                    return this;
+                }
+                flush(frame);
+            }
+            DataOutputStream out = out(frame);
+            out.writeByte(OBJECT);
+            writeVarInt(out, frame.size);
+            frame.bytes.writeTo(out);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter name(@NotNull String name) {
+            this.frame.name = name;
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable String value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            DataOutputStream out = next(STRING, 0);
+            out.writeByte(STRING);
+            writeVarInt(out, string(value));
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter jsonValue(@Nullable String value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            GSON.toJson(JsonParser.parseString(value), this);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter nullValue() throws IOException {
+            if (this.frame != null && !this.frame.array && !getSerializeNulls()) {
+                // drop the member, like gson does
+                this.frame.name = null;
+                return this;
+            }
+            next(NULL, 0).writeByte(NULL);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(boolean value) throws IOException {
+            next(value ? TRUE : FALSE, 0).writeByte(value ? TRUE : FALSE);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable Boolean value) throws IOException {
+            return value == null ? nullValue() : value(value.booleanValue());
+        }
+
+        @Override
+        public @NotNull JsonWriter value(float value) throws IOException {
+            // same value a reader gets from the float written as text
+            return value(Double.parseDouble(Float.toString(value)));
+        }
+
+        @Override
+        public @NotNull JsonWriter value(double value) throws IOException {
+            if (value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return integer((long) value);
+            }
+            DataOutputStream out = next(DOUBLE, 0);
+            out.writeByte(DOUBLE);
+            out.writeDouble(value);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(long value) throws IOException {
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return integer(value);
+            }
+            return value((double) value);
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable Number value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return value(value.longValue());
+            }
+            return value(Double.parseDouble(value.toString()));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private @NotNull JsonWriter integer(long value) throws IOException {
+            DataOutputStream out = next(INT, value);
+            if (out != null) {
+                out.writeByte(INT);
+                writeSignedVarInt(out, value);
+            }
+            return this;
+        }
+
+        /**
+         * Get ready to write a value into the current array or object.
+         *
+         * @param type  type of value
+         * @param value the value, if it is an integer
+         * @return where to write the value, or null if it was held on to (integers) or may still be (objects)
+         */
+        private @Nullable DataOutputStream next(int type, long value) throws IOException {
+            Frame frame = this.frame;
+            if (frame == null) {
+                return this.target;
+            }
+            if (frame.array) {
+                if (frame.type == UNSET) {
+                    frame.type = type == INT ? INTS : type == OBJECT ? POINTS : ARRAY;
+                }
+                frame.size++;
+                if (frame.type == INTS && type == INT) {
+                    frame.add(value);
+                    return null;
+                }
+                if (frame.type == POINTS && type == OBJECT) {
+                    return null;
+                }
+                flush(frame);
+                return frame.out;
+            }
+            String name = frame.name;
+            frame.name = null;
+            frame.size++;
+            if (frame.type == POINTS && type == INT && isPointMember(frame, name)) {
+                if (frame.count == 0) {
+                    frame.first = name;
+                }
+                frame.add(value);
+                return null;
+            }
+            flush(frame);
+            writeVarInt(frame.out, string(name == null ? "" : name));
+            return frame.out;
+        }
+
+        /**
+         * Write out what a frame held on to, and stop holding on to anything.
+         *
+         * @param frame frame to write out
+         */
+        private void flush(@NotNull Frame frame) throws IOException {
+            if (frame.array) {
+                if (frame.type == INTS) {
+                    for (int i = 0; i < frame.count; i++) {
+                        frame.out.writeByte(INT);
+                        writeSignedVarInt(frame.out, frame.values[i]);
+                    }
+                } else if (frame.type == POINTS) {
+                    for (int i = 0; i < frame.count; i += 2) {
+                        writePoint(frame.out, frame.values[i], frame.values[i + 1], frame.zFirst.get(i / 2));
+                    }
+                }
+                frame.type = ARRAY;
+            } else if (frame.type == POINTS) {
+                // the array this object is in cannot be all points anymore either
+                if (frame.parent != null) {
+                    flush(frame.parent);
+                }
+                boolean xFirst = "x".equals(frame.first);
+                for (int i = 0; i < frame.count; i++) {
+                    writeMember(frame.out, (i == 0) == xFirst ? "x" : "z", frame.values[i]);
+                }
+                frame.type = OBJECT;
+            }
+            frame.count = 0;
+        }
+
+        private boolean isPointMember(@NotNull Frame frame, @Nullable String name) {
+            if (frame.count == 0) {
+                return "x".equals(name) || "z".equals(name);
+            }
+            return frame.count == 1 && name != null && !name.equals(frame.first) && ("x".equals(name) || "z".equals(name));
+        }
+
+        private void writePoint(@NotNull DataOutputStream out, long x, long z, boolean zFirst) throws IOException {
+            out.writeByte(OBJECT);
+            writeVarInt(out, 2);
+            writeMember(out, zFirst ? "z" : "x", zFirst ? z : x);
+            writeMember(out, zFirst ? "x" : "z", zFirst ? x : z);
+        }
+
+        private void writeMember(@NotNull DataOutputStream out, @NotNull String name, long value) throws IOException {
+            writeVarInt(out, string(name));
+            out.writeByte(INT);
+            writeSignedVarInt(out, value);
+        }
+
+        private @NotNull Frame pop() {
+            Frame frame = this.frame;
+            this.frame = frame.parent;
+            return frame;
+        }
+
+        private @NotNull DataOutputStream out(@NotNull Frame frame) {
+            return frame.parent == null ? this.target : frame.parent.out;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.markers;
+
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the block area covered by a marker, with all coordinates inclusive.
+ */
+public record Bounds(int minX, int minZ, int maxX, int maxZ) {
+    public static @NotNull Bounds of(@NotNull Point point) {
+        return new Bounds(point.x(), point.z(), point.x(), point.z());
+    }
+
+    public static @Nullable Bounds of(@NotNull Collection<@NotNull Point> points) {
+        Bounds bounds = null;
+        for (Point point : points) {
+            bounds = of(point).union(bounds);
+        }
+        return bounds;
+    }
+
+    public @NotNull Bounds union(@Nullable Bounds other) {
+        if (other == null) {
+            return this;
+        }
+        return new Bounds(Math.min(minX(), other.minX()), Math.min(minZ(), other.minZ()),
+                Math.max(maxX(), other.maxX()), Math.max(maxZ(), other.maxZ()));
+    }
+
+    public @NotNull Bounds expand(double amount) {
+        return new Bounds((int) Math.floor(minX() - amount), (int) Math.floor(minZ() - amount),
+                (int) Math.ceil(maxX() + amount), (int) Math.ceil(maxZ() + amount));
+    }
+
+    public int minRegionX() {
+        return minX() >> 9;
+    }
+
+    public int minRegionZ() {
+        return minZ() >> 9;
+    }
+
+    public int maxRegionX() {
+        return maxX() >> 9;
+    }
+
+    public int maxRegionZ() {
+        return maxZ() >> 9;
+    }
+
+    public long regionCount() {
+        return (long) (maxRegionX() - minRegionX() + 1) * (maxRegionZ() - minRegionZ() + 1);
+    }
+}
@@ -24,6 +24,7 @@
 package net.pl3x.map.core.markers;
 
 import com.google.gson.JsonElement;
+import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -36,4 +37,17 @@ public interface JsonSerializable {
      * @return object as json element
      */
     @NotNull JsonElement toJson();
+
+    /**
+     * Stream this object as json, without building a json tree first.
+     * <p>
+     * Defaults to writing {@link #toJson()}. Implementations that get serialized
+     * often (such as markers and their options) write their members directly.
+     *
+     * @param writer writer to stream to
+     * @throws IOException if the object could not be written
+     */
+    default void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.value(toJson());
+    }
 }
@@ -0,0 +1,247 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.markers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+import net.pl3x.map.core.markers.option.Option;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a wrapped {@link JsonWriter} with the same '<code>addProperty</code>' methods
+ * as {@link JsonObjectWrapper}, so objects can be streamed straight to their destination
+ * without building a json tree first.
+ * <p>
+ * Null values are not written, they will simply be ignored when added.
+ */
+@SuppressWarnings("unused")
+public class JsonWriterWrapper {
+    private static final Gson GSON = new Gson();
+
+    private final JsonWriter wrapped;
+
+    /**
+     * Creates a JsonWriterWrapper around the given writer.
+     *
+     * @param writer writer to wrap
+     */
+    public JsonWriterWrapper(@NotNull JsonWriter writer) {
+        this.wrapped = writer;
+    }
+
+    /**
+     * Get the underlying JsonWriter.
+     *
+     * @return JsonWriter
+     */
+    public @NotNull JsonWriter getJsonWriter() {
+        return this.wrapped;
+    }
+
+    /**
+     * Begin a new json object.
+     *
+     * @return this wrapper
+     * @throws IOException if the object could not be written
+     */
+    public @NotNull JsonWriterWrapper beginObject() throws IOException {
+        getJsonWriter().beginObject();
+        return this;
+    }
+
+    /**
+     * End the current json object.
+     *
+     * @return this wrapper
+     * @throws IOException if the object could not be written
+     */
+    public @NotNull JsonWriterWrapper endObject() throws IOException {
+        getJsonWriter().endObject();
+        return this;
+    }
+
+    /**
+     * Begin a new json array.
+     *
+     * @return this wrapper
+     * @throws IOException if the array could not be written
+     */
+    public @NotNull JsonWriterWrapper beginArray() throws IOException {
+        getJsonWriter().beginArray();
+        return this;
+    }
+
+    /**
+     * End the current json array.
+     *
+     * @return this wrapper
+     * @throws IOException if the array could not be written
+     */
+    public @NotNull JsonWriterWrapper endArray() throws IOException {
+        getJsonWriter().endArray();
+        return this;
+    }
+
+    /**
+     * Write a json serializable value.
+     *
+     * @param value the json serializable value
+     * @throws IOException if the value could not be written
+     */
+    public void value(@NotNull JsonSerializable value) throws IOException {
+        value.writeJson(this);
+    }
+
+    /**
+     * Write an already built json element.
+     *
+     * @param value the json element
+     * @throws IOException if the value could not be written
+     */
+    public void value(@NotNull JsonElement value) throws IOException {
+        GSON.toJson(value, getJsonWriter());
+    }
+
+    /**
+     * Write an enum member as its ordinal.
+     *
+     * @param property name of the member.
+     * @param value    the enum value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable Enum<?> value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).value(value.ordinal());
+    }
+
+    /**
+     * Write a json serializable member.
+     *
+     * @param property name of the member.
+     * @param value    the json serializable value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable JsonSerializable value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property);
+        value.writeJson(this);
+    }
+
+    /**
+     * Write an option member.
+     *
+     * @param property name of the member.
+     * @param value    the option value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable Option<?> value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property);
+        value.writeJson(this);
+    }
+
+    /**
+     * Write a list of json serializable values as an array member.
+     *
+     * @param property name of the member.
+     * @param value    the values associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable List<? extends @NotNull JsonSerializable> value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).beginArray();
+        for (JsonSerializable serializable : value) {
+            serializable.writeJson(this);
+        }
+        getJsonWriter().endArray();
+    }
+
+    /**
+     * Write a string member.
+     *
+     * @param property name of the member.
+     * @param value    the string value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).value(value);
+    }
+
+    /**
+     * Write a number member.
+     *
+     * @param property name of the member.
+     * @param value    the number value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable Number value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).value(value);
+    }
+
+    /**
+     * Write a boolean member.
+     *
+     * @param property name of the member.
+     * @param value    the boolean value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable Boolean value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).value(value);
+    }
+
+    /**
+     * Write a char member as a string.
+     *
+     * @param property name of the member.
+     * @param value    the char value associated with the member.
+     * @throws IOException if the member could not be written
+     */
+    public void addProperty(@NotNull String property, @Nullable Character value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        getJsonWriter().name(property).value(String.valueOf(value));
+    }
+}
@@ -24,6 +24,7 @@
 package net.pl3x.map.core.markers;
 
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
 
 public record Point(int x, int z) implements JsonSerializable {
@@ -45,6 +46,14 @@ public record Point(int x, int z) implements JsonSerializable {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("x", x());
+        writer.addProperty("z", z());
+        writer.endObject();
+    }
+
     public static @NotNull Point fromJson(@NotNull JsonObject obj) {
         return Point.of(obj.get("x").getAsInt(), obj.get("z").getAsInt());
     }
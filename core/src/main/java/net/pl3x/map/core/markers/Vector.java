@@ -24,6 +24,7 @@
 package net.pl3x.map.core.markers;
 
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
 
 public record Vector(double x, double z) implements JsonSerializable {
@@ -43,6 +44,14 @@ public record Vector(double x, double z) implements JsonSerializable {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("x", x());
+        writer.addProperty("z", z());
+        writer.endObject();
+    }
+
     public static @NotNull Vector fromJson(@NotNull JsonObject obj) {
         return Vector.of(obj.get("x").getAsDouble(), obj.get("z").getAsDouble());
     }
@@ -74,6 +74,10 @@ public class CustomLayer extends WorldLayer {
         if ((el = obj.get("zIndex")) != null && !(el instanceof JsonNull)) layer.setZIndex(el.getAsInt());
         if ((el = obj.get("pane")) != null && !(el instanceof JsonNull)) layer.setPane(el.getAsString());
         if ((el = obj.get("css")) != null && !(el instanceof JsonNull)) layer.setCss(el.getAsString());
+        if ((el = obj.get("tiled")) != null && !(el instanceof JsonNull)) layer.setTiled(el.getAsBoolean());
+        if ((el = obj.get("clustered")) != null && !(el instanceof JsonNull)) layer.setClustered(el.getAsBoolean());
+        if ((el = obj.get("binary")) != null && !(el instanceof JsonNull)) layer.setBinary(el.getAsBoolean());
+        if ((el = obj.get("sharedOptions")) != null && !(el instanceof JsonNull)) layer.setSharedOptions(el.getAsBoolean());
         return layer;
     }
 }
@@ -48,6 +48,10 @@ public abstract class Layer extends Keyed implements JsonSerializable {
     private Integer zIndex = 99;
     private String pane;
     private String css;
+    private boolean tiled = false;
+    private boolean clustered = false;
+    private boolean binary = false;
+    private boolean sharedOptions = false;
 
     /**
      * Create a layer.
@@ -246,6 +250,96 @@ public abstract class Layer extends Keyed implements JsonSerializable {
         return this;
     }
 
+    /**
+     * Get if this layer's icons are grouped into clusters when zoomed out.
+     *
+     * @return true if clustered
+     */
+    public boolean isClustered() {
+        return this.clustered;
+    }
+
+    /**
+     * Set if this layer's icons are grouped into clusters when zoomed out.
+     * <p>
+     * Icons close enough to overlap at a zoom level are shown as a single cluster with a count,
+     * which keeps the map fast for layers with thousands of icons, such as shops or homes.
+     *
+     * @param clustered true to cluster icons
+     * @return this layer
+     */
+    public @NotNull Layer setClustered(boolean clustered) {
+        this.clustered = clustered;
+        return this;
+    }
+
+    /**
+     * Get if this layer's markers are split up by region, so the map only loads markers in view.
+     *
+     * @return true if tiled
+     */
+    public boolean isTiled() {
+        return this.tiled;
+    }
+
+    /**
+     * Set if this layer's markers are split up by region, so the map only loads markers in view.
+     * <p>
+     * Recommended for layers with many markers spread across the world, such as land claims.
+     *
+     * @param tiled true to split markers up by region
+     * @return this layer
+     */
+    public @NotNull Layer setTiled(boolean tiled) {
+        this.tiled = tiled;
+        return this;
+    }
+
+    /**
+     * Get if this layer's markers are sent to the map in a compact binary format instead of json.
+     *
+     * @return true if binary
+     */
+    public boolean isBinary() {
+        return this.binary;
+    }
+
+    /**
+     * Set if this layer's markers are sent to the map in a compact binary format instead of json.
+     * <p>
+     * Recommended for layers with many points, such as land claim outlines or long roads.
+     *
+     * @param binary true to send markers as binary
+     * @return this layer
+     */
+    public @NotNull Layer setBinary(boolean binary) {
+        this.binary = binary;
+        return this;
+    }
+
+    /**
+     * Get if this layer's json marker files list each distinct set of options once, with markers referencing them by index.
+     *
+     * @return true if options are shared
+     */
+    public boolean isSharedOptions() {
+        return this.sharedOptions;
+    }
+
+    /**
+     * Set if this layer's json marker files list each distinct set of options once, with markers referencing them by index.
+     * <p>
+     * Recommended for layers with many markers of the same style. Changes the layout of the layer's
+     * marker files, so only enable it if nothing else reads them. Binary marker files always share options.
+     *
+     * @param sharedOptions true to share options
+     * @return this layer
+     */
+    public @NotNull Layer setSharedOptions(boolean sharedOptions) {
+        this.sharedOptions = sharedOptions;
+        return this;
+    }
+
     /**
      * Get the markers to display in this Layer.
      *
@@ -264,6 +358,10 @@ public abstract class Layer extends Keyed implements JsonSerializable {
         wrapper.addProperty("zIndex", getZIndex());
         wrapper.addProperty("pane", getPane());
         wrapper.addProperty("css", getCss());
+        wrapper.addProperty("tiled", isTiled());
+        wrapper.addProperty("clustered", isClustered());
+        wrapper.addProperty("binary", isBinary());
+        wrapper.addProperty("sharedOptions", isSharedOptions());
         return wrapper.getJsonObject();
     }
 
@@ -287,12 +385,16 @@ public abstract class Layer extends Keyed implements JsonSerializable {
                 && getPriority() == other.getPriority()
                 && Objects.equals(getZIndex(), other.getZIndex())
                 && Objects.equals(getPane(), other.getPane())
-                && Objects.equals(getCss(), other.getCss());
+                && Objects.equals(getCss(), other.getCss())
+                && isTiled() == other.isTiled()
+                && isClustered() == other.isClustered()
+                && isBinary() == other.isBinary()
+                && isSharedOptions() == other.isSharedOptions();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getKey(), getLabel(), getUpdateInterval(), shouldShowControls(), isDefaultHidden(), getPriority(), getZIndex(), getPane(), getCss());
+        return Objects.hash(getKey(), getLabel(), getUpdateInterval(), shouldShowControls(), isDefaultHidden(), getPriority(), getZIndex(), getPane(), getCss(), isTiled(), isClustered(), isBinary(), isSharedOptions());
     }
 
     @Override
@@ -307,6 +409,10 @@ public abstract class Layer extends Keyed implements JsonSerializable {
                 + ",zIndex=" + getZIndex()
                 + ",pane=" + getPane()
                 + ",css=" + getCss()
+                + ",tiled=" + isTiled()
+                + ",clustered=" + isClustered()
+                + ",binary=" + isBinary()
+                + ",sharedOptions=" + isSharedOptions()
                 + "}";
     }
 }
@@ -26,8 +26,11 @@ package net.pl3x.map.core.markers.marker;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
@@ -137,6 +140,11 @@ public class Circle extends Marker<@NotNull Circle> {
         return this;
     }
 
+    @Override
+    public @NotNull Bounds getBounds() {
+        return Bounds.of(getCenter()).expand(getRadius());
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -147,6 +155,16 @@ public class Circle extends Marker<@NotNull Circle> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("center", getCenter());
+        writer.addProperty("radius", getRadius());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Circle fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Circle circle = Circle.of(
@@ -26,8 +26,11 @@ package net.pl3x.map.core.markers.marker;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.Vector;
 import net.pl3x.map.core.util.Preconditions;
@@ -324,6 +327,12 @@ public class Ellipse extends Marker<@NotNull Ellipse> {
         return this;
     }
 
+    @Override
+    public @NotNull Bounds getBounds() {
+        // tilt can rotate the ellipse any way, so cover its longest radius in both directions
+        return Bounds.of(getCenter()).expand(Math.max(getRadius().x(), getRadius().z()));
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -335,6 +344,17 @@ public class Ellipse extends Marker<@NotNull Ellipse> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("center", getCenter());
+        writer.addProperty("radius", getRadius());
+        writer.addProperty("tilt", getTilt());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Ellipse fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Ellipse ellipse = Ellipse.of(
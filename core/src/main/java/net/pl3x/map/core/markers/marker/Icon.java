@@ -32,7 +32,9 @@ import java.util.Objects;
 import javax.imageio.ImageIO;
 import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.image.IconImage;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.Vector;
 import net.pl3x.map.core.registry.IconRegistry;
@@ -558,6 +560,11 @@ public class Icon extends Marker<@NotNull Icon> {
         return this;
     }
 
+    @Override
+    public @NotNull Bounds getBounds() {
+        return Bounds.of(getPoint());
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -577,6 +584,25 @@ public class Icon extends Marker<@NotNull Icon> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("point", getPoint());
+        writer.addProperty("image", getImage());
+        writer.addProperty("retina", getRetina());
+        writer.addProperty("size", getSize());
+        writer.addProperty("anchor", getAnchor());
+        writer.addProperty("shadow", getShadow());
+        writer.addProperty("shadowRetina", getShadowRetina());
+        writer.addProperty("shadowSize", getShadowSize());
+        writer.addProperty("shadowAnchor", getShadowAnchor());
+        writer.addProperty("rotationAngle", getRotationAngle());
+        writer.addProperty("rotationOrigin", getRotationOrigin());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Icon fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Icon icon = Icon.of(
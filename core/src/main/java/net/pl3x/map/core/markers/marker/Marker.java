@@ -28,6 +28,7 @@ import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import java.util.List;
 import net.pl3x.map.core.Keyed;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonSerializable;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.Vector;
@@ -516,6 +517,18 @@ public abstract class Marker<T extends Marker<@NotNull T>> extends Keyed impleme
         return setOptions(builder == null ? null : builder.build());
     }
 
+    /**
+     * Get the block area this marker covers.
+     * <p>
+     * Used to sort markers of tiled layers into the regions they show up in.
+     * Markers without bounds are always loaded.
+     *
+     * @return marker bounds or null if unknown
+     */
+    public @Nullable Bounds getBounds() {
+        return null;
+    }
+
     public static @NotNull Marker<?> fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         String type = obj.get("type").getAsString();
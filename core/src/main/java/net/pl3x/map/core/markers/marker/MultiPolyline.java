@@ -27,11 +27,14 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -208,6 +211,16 @@ public class MultiPolyline extends Marker<@NotNull MultiPolyline> {
         return this;
     }
 
+    @Override
+    public @Nullable Bounds getBounds() {
+        Bounds bounds = null;
+        for (Polyline polyline : getPolylines()) {
+            Bounds other = polyline.getBounds();
+            bounds = other == null ? bounds : other.union(bounds);
+        }
+        return bounds;
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -217,6 +230,15 @@ public class MultiPolyline extends Marker<@NotNull MultiPolyline> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("polylines", getPolylines());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull MultiPolyline fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         MultiPolyline multiPolyline = MultiPolyline.of(obj.get("key").getAsString());
@@ -27,11 +27,14 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -212,6 +215,16 @@ public class Polygon extends Marker<@NotNull Polygon> {
         return this;
     }
 
+    @Override
+    public @Nullable Bounds getBounds() {
+        Bounds bounds = null;
+        for (Polyline polyline : getPolylines()) {
+            Bounds other = polyline.getBounds();
+            bounds = other == null ? bounds : other.union(bounds);
+        }
+        return bounds;
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -221,6 +234,15 @@ public class Polygon extends Marker<@NotNull Polygon> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("polylines", getPolylines());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Polygon fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Polygon polygon = Polygon.of(obj.get("key").getAsString());
@@ -27,13 +27,17 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Preconditions;
+import net.pl3x.map.core.util.Simplify;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -54,6 +58,9 @@ import org.jetbrains.annotations.Nullable;
  */
 @SuppressWarnings("UnusedReturnValue")
 public class Polyline extends Marker<@NotNull Polyline> {
+    // lines with fewer points are cheap enough to always draw in full
+    private static final int SIMPLIFY_MIN_POINTS = 16;
+
     private final List<@NotNull Point> points = new ArrayList<>();
 
     private Polyline(@NotNull String key) {
@@ -265,6 +272,11 @@ public class Polyline extends Marker<@NotNull Polyline> {
         return this;
     }
 
+    @Override
+    public @Nullable Bounds getBounds() {
+        return Bounds.of(getPoints());
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -274,6 +286,34 @@ public class Polyline extends Marker<@NotNull Polyline> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        if (getPoints().size() < SIMPLIFY_MIN_POINTS) {
+            writer.addProperty("points", getPoints());
+        } else {
+            // let the webmap drop points that are too close together to see at its zoom level
+            int[] levels = Simplify.zoomLevels(getPoints());
+            List<Point> points = new ArrayList<>();
+            List<Integer> zooms = new ArrayList<>();
+            for (int i = 0; i < levels.length; i++) {
+                if (levels[i] != Simplify.NEVER) {
+                    points.add(getPoints().get(i));
+                    zooms.add(levels[i]);
+                }
+            }
+            writer.addProperty("points", points);
+            writer.getJsonWriter().name("zooms").beginArray();
+            for (int zoom : zooms) {
+                writer.getJsonWriter().value(zoom);
+            }
+            writer.getJsonWriter().endArray();
+        }
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Polyline fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Polyline polyline = Polyline.of(obj.get("key").getAsString());
@@ -26,8 +26,11 @@ package net.pl3x.map.core.markers.marker;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
+import net.pl3x.map.core.markers.Bounds;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
@@ -139,6 +142,11 @@ public class Rectangle extends Marker<@NotNull Rectangle> {
         return this;
     }
 
+    @Override
+    public @NotNull Bounds getBounds() {
+        return Bounds.of(getPoint1()).union(Bounds.of(getPoint2()));
+    }
+
     @Override
     public @NotNull JsonObject toJson() {
         JsonObjectWrapper wrapper = new JsonObjectWrapper();
@@ -149,6 +157,16 @@ public class Rectangle extends Marker<@NotNull Rectangle> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("key", getKey());
+        writer.addProperty("point1", getPoint1());
+        writer.addProperty("point2", getPoint2());
+        writer.addProperty("pane", getPane());
+        writer.endObject();
+    }
+
     public static @NotNull Rectangle fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Rectangle rectangle = Rectangle.of(
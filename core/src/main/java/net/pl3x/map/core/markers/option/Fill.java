@@ -26,8 +26,10 @@ package net.pl3x.map.core.markers.option;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -154,6 +156,15 @@ public class Fill extends Option<@NotNull Fill> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("enabled", isEnabled());
+        writer.addProperty("type", getType());
+        writer.addProperty("color", getColor());
+        writer.endObject();
+    }
+
     public static @NotNull Fill fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Fill fill = new Fill();
@@ -26,9 +26,11 @@ package net.pl3x.map.core.markers.option;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
 import net.pl3x.map.core.markers.JsonSerializable;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.marker.Marker;
 import org.jetbrains.annotations.NotNull;
@@ -179,6 +181,16 @@ public class Options implements JsonSerializable {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("stroke", getStroke());
+        writer.addProperty("fill", getFill());
+        writer.addProperty("tooltip", getTooltip());
+        writer.addProperty("popup", getPopup());
+        writer.endObject();
+    }
+
     public static @NotNull Options fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Options options = new Options();
@@ -26,8 +26,10 @@ package net.pl3x.map.core.markers.option;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -490,6 +492,27 @@ public class Popup extends Option<@NotNull Popup> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("content", getContent());
+        writer.addProperty("pane", getPane());
+        writer.addProperty("offset", getOffset());
+        writer.addProperty("maxWidth", getMaxWidth());
+        writer.addProperty("minWidth", getMinWidth());
+        writer.addProperty("maxHeight", getMaxHeight());
+        writer.addProperty("autoPan", shouldAutoPan());
+        writer.addProperty("autoPanPaddingTopLeft", getAutoPanPaddingTopLeft());
+        writer.addProperty("autoPanPaddingBottomRight", getAutoPanPaddingBottomRight());
+        writer.addProperty("autoPanPadding", getAutoPanPadding());
+        writer.addProperty("keepInView", shouldKeepInView());
+        writer.addProperty("closeButton", hasCloseButton());
+        writer.addProperty("autoClose", shouldAutoClose());
+        writer.addProperty("closeOnEscapeKey", shouldCloseOnEscapeKey());
+        writer.addProperty("closeOnClick", shouldCloseOnClick());
+        writer.endObject();
+    }
+
     public static @NotNull Popup fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Popup popup = new Popup();
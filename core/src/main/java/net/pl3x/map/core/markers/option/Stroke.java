@@ -26,8 +26,10 @@ package net.pl3x.map.core.markers.option;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -271,6 +273,19 @@ public class Stroke extends Option<@NotNull Stroke> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("enabled", isEnabled());
+        writer.addProperty("weight", getWeight());
+        writer.addProperty("color", getColor());
+        writer.addProperty("lineCap", getLineCapShape());
+        writer.addProperty("lineJoin", getLineJoinShape());
+        writer.addProperty("dashArray", getDashPattern());
+        writer.addProperty("dashOffset", getDashOffset());
+        writer.endObject();
+    }
+
     public static @NotNull Stroke fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Stroke stroke = new Stroke();
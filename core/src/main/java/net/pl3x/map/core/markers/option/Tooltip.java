@@ -26,8 +26,10 @@ package net.pl3x.map.core.markers.option;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Objects;
 import net.pl3x.map.core.markers.JsonObjectWrapper;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Mathf;
 import org.jetbrains.annotations.NotNull;
@@ -262,6 +264,19 @@ public class Tooltip extends Option<@NotNull Tooltip> {
         return wrapper.getJsonObject();
     }
 
+    @Override
+    public void writeJson(@NotNull JsonWriterWrapper writer) throws IOException {
+        writer.beginObject();
+        writer.addProperty("content", getContent());
+        writer.addProperty("pane", getPane());
+        writer.addProperty("offset", getOffset());
+        writer.addProperty("direction", getDirection());
+        writer.addProperty("permanent", isPermanent());
+        writer.addProperty("sticky", isSticky());
+        writer.addProperty("opacity", getOpacity());
+        writer.endObject();
+    }
+
     public static @NotNull Tooltip fromJson(@NotNull JsonObject obj) {
         JsonElement el;
         Tooltip tooltip = new Tooltip();
@@ -46,6 +46,7 @@ public class WorldRegistry extends Registry<@NotNull World> {
         if (world != null) {
             Pl3xMap.api().getEventRegistry().callEvent(new WorldUnloadedEvent(world));
             world.getMarkerTask().cancel();
+            world.getTileManifestTask().cancel();
             //world.getRegionFileWatcher().stop();
             world.cleanup();
         }
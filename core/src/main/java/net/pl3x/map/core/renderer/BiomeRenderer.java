@@ -48,7 +48,7 @@ public final class BiomeRenderer extends Renderer {
 
             // work out the heightmap
             if (data.getFluidState() == null) {
-                pixelColor = Colors.blend(getHeightmap().getColor(region, blockX, blockZ), pixelColor);
+                pixelColor = Colors.blend(getHeightmapColor(region, blockX, blockZ), pixelColor);
             }
         }
 
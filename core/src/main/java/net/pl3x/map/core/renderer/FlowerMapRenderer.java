@@ -66,12 +66,12 @@ public class FlowerMapRenderer extends Renderer {
         }
 
         // work out the heightmap
-        pixelColor = Colors.blend(getHeightmap().getColor(region, blockX, blockZ), pixelColor);
+        pixelColor = Colors.blend(getHeightmapColor(region, blockX, blockZ), pixelColor);
 
         // fluid stuff
         if (data.getFluidState() != null) {
             if (getWorld().getConfig().RENDER_TRANSLUCENT_FLUIDS) {
-                int fluidColor = fancyFluids(region, biome, data.getFluidState(), blockX, blockZ, (data.getFluidY() - data.getBlockY()) * 0.025F);
+                int fluidColor = fancyFluids(region, biome, data.getFluidState(), blockX, blockZ, data.getFluidY() - data.getBlockY());
                 pixelColor = Colors.blend(fluidColor, pixelColor);
             } else {
                 pixelColor = Colors.getWaterColor(region, biome, blockX, blockZ);
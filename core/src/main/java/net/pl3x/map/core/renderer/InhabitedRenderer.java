@@ -34,6 +34,10 @@ import org.jetbrains.annotations.NotNull;
 public final class InhabitedRenderer extends Renderer {
     private Renderer basic;
 
+    // the heatmap color only depends on the chunk
+    private Chunk lastChunk;
+    private int lastInhabitedRGB;
+
     public InhabitedRenderer(@NotNull RegionScanTask task, @NotNull Builder builder) {
         super(task, builder);
     }
@@ -58,8 +62,12 @@ public final class InhabitedRenderer extends Renderer {
 
         // we hsb lerp between blue and red with ratio being the
         // percent inhabited time is of the maxed out inhabited time
-        float ratio = Mathf.clamp(0F, 1F, chunk.getInhabitedTime() / 3600000F);
-        int inhabitedRGB = Colors.lerpHSB(0x880000FF, 0x88FF0000, ratio, false);
+        if (chunk != this.lastChunk) {
+            float ratio = Mathf.clamp(0F, 1F, chunk.getInhabitedTime() / 3600000F);
+            this.lastInhabitedRGB = Colors.lerpHSB(0x880000FF, 0x88FF0000, ratio, false);
+            this.lastChunk = chunk;
+        }
+        int inhabitedRGB = this.lastInhabitedRGB;
 
         // set the color, mixing our heatmap on top
         // set a low enough alpha, so we can see the basic map underneath
@@ -42,6 +42,21 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class Renderer extends Keyed {
+    // fancy fluid shading only depends on the depth in blocks, and stops changing well before this
+    private static final int FLUID_DEPTHS = 32;
+    private static final float[] WATER_SHADE = new float[FLUID_DEPTHS];
+    private static final int[] WATER_ALPHA = new int[FLUID_DEPTHS];
+    private static final float[] LAVA_SHADE = new float[FLUID_DEPTHS];
+
+    static {
+        for (int i = 0; i < FLUID_DEPTHS; i++) {
+            float depth = i * 0.025F;
+            WATER_SHADE[i] = Mathf.clamp(0, 0.45F, Easing.cubicOut(depth / 1.5F));
+            WATER_ALPHA[i] = (int) (Easing.quinticOut(Mathf.clamp(0, 1, depth * 5F)) * 0xFF);
+            LAVA_SHADE[i] = Mathf.clamp(0, 0.3F, Easing.cubicOut(depth / 1.5F));
+        }
+    }
+
     private final RegionScanTask task;
     private final String name;
     private final World world;
@@ -75,6 +90,18 @@ public abstract class Renderer extends Keyed {
         return this.heightmap;
     }
 
+    /**
+     * Get this renderer's heightmap color for a block, from the region's precomputed shading.
+     *
+     * @param region region the block is in
+     * @param blockX block x
+     * @param blockZ block z
+     * @return heightmap color
+     */
+    public int getHeightmapColor(@NotNull Region region, int blockX, int blockZ) {
+        return region.getHeightPlane().getShading(getHeightmap())[(blockX & 511) + ((blockZ & 511) << 9)];
+    }
+
     public @NotNull TileImage getTileImage() {
         return this.tileImage;
     }
@@ -140,7 +167,7 @@ public abstract class Renderer extends Keyed {
                 // fix alpha
                 pixelColor = Colors.setAlpha(0xFF, pixelColor);
                 // work out the heightmap
-                pixelColor = Colors.blend(getHeightmap().getColor(region, blockX, blockZ), pixelColor);
+                pixelColor = Colors.blend(getHeightmapColor(region, blockX, blockZ), pixelColor);
             }
         }
 
@@ -150,7 +177,7 @@ public abstract class Renderer extends Keyed {
                 pixelColor = Colors.getWaterColor(region, biome, blockX, blockZ);
             } else {
                 // fancy fluids, yum
-                int fluidColor = fancyFluids(region, biome, data.getFluidState(), blockX, blockZ, (data.getFluidY() - data.getBlockY()) * 0.025F);
+                int fluidColor = fancyFluids(region, biome, data.getFluidState(), blockX, blockZ, data.getFluidY() - data.getBlockY());
                 pixelColor = Colors.blend(fluidColor, pixelColor);
             }
         }
@@ -163,6 +190,22 @@ public abstract class Renderer extends Keyed {
         return pixelColor;
     }
 
+    public int fancyFluids(@NotNull Region region, @NotNull Biome biome, @NotNull BlockState fluidstate, int blockX, int blockZ, int depth) {
+        // same as below, looked up by depth in blocks
+        int i = Mathf.clamp(0, FLUID_DEPTHS - 1, depth);
+        int color;
+        if (fluidstate.getBlock().isWater()) {
+            color = Colors.getWaterColor(region, biome, blockX, blockZ);
+            color = Colors.lerpARGB(color, 0xFF000000, WATER_SHADE[i]);
+            color = Colors.setAlpha(WATER_ALPHA[i], color);
+        } else {
+            // lava
+            color = Colors.lerpARGB(fluidstate.getBlock().color(), 0xFF000000, LAVA_SHADE[i]);
+            color = Colors.setAlpha(0xFF, color);
+        }
+        return color;
+    }
+
     public int fancyFluids(@NotNull Region region, @NotNull Biome biome, @NotNull BlockState fluidstate, int blockX, int blockZ, float depth) {
         // let's do some maths to get pretty fluid colors based on depth
         int color;
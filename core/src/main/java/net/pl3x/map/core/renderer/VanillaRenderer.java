@@ -59,7 +59,7 @@ public class VanillaRenderer extends Renderer {
 
                 Pl3xMap.api().getRegionProcessor().checkPaused();
 
-                Chunk chunk = region.getWorld().getChunk(region, blockX >> 4, blockZ >> 4);
+                Chunk chunk = region.getWorld().readChunk(region, blockX >> 4, blockZ >> 4);
                 if (chunk instanceof EmptyChunk) {
                     continue;
                 }
@@ -23,20 +23,19 @@
  */
 package net.pl3x.map.core.renderer.heightmap;
 
-import net.pl3x.map.core.world.Chunk;
-import net.pl3x.map.core.world.Region;
+import net.pl3x.map.core.world.HeightPlane;
 import org.jetbrains.annotations.NotNull;
 
-public class EvenOddHeightmap extends Heightmap {
+public class EvenOddHeightmap extends StencilHeightmap {
     public EvenOddHeightmap() {
         super("even_odd");
     }
 
     @Override
-    public int getColor(@NotNull Region region, int blockX, int blockZ) {
-        Chunk.BlockData origin = region.getWorld().getChunk(region, blockX >> 4, blockZ >> 4).getData(blockX, blockZ);
+    protected int getColor(int @NotNull [] heights, int index) {
+        int y = heights[index];
         int heightColor = 0x22;
-        if (origin != null && origin.getBlockY() % 2 == 1) {
+        if (y != HeightPlane.NO_HEIGHT && y % 2 == 1) {
             heightColor = 0x33;
         }
         return heightColor << 24;
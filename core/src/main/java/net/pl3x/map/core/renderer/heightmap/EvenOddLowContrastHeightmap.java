@@ -23,29 +23,27 @@
  */
 package net.pl3x.map.core.renderer.heightmap;
 
-import net.pl3x.map.core.world.Chunk;
-import net.pl3x.map.core.world.Region;
+import net.pl3x.map.core.world.HeightPlane;
 import org.jetbrains.annotations.NotNull;
 
-public class EvenOddLowContrastHeightmap extends Heightmap {
+public class EvenOddLowContrastHeightmap extends StencilHeightmap {
     public EvenOddLowContrastHeightmap() {
         super("even_odd_low_contrast");
     }
 
     @Override
     @SuppressWarnings("DuplicatedCode")
-    public int getColor(@NotNull Region region, int blockX, int blockZ) {
-        Chunk.BlockData origin = region.getWorld().getChunk(region, blockX >> 4, blockZ >> 4).getData(blockX, blockZ);
-        Chunk.BlockData west = region.getWorld().getChunk(region, (blockX - 1) >> 4, blockZ >> 4).getData(blockX - 1, blockZ);
-        Chunk.BlockData north = region.getWorld().getChunk(region, blockX >> 4, (blockZ - 1) >> 4).getData(blockX, blockZ - 1);
+    protected int getColor(int @NotNull [] heights, int index) {
+        int y = heights[index];
         int heightColor = 0x22;
-        if (origin != null) {
-            int y = origin.getBlockY();
-            if (west != null) {
-                heightColor = getColor(y, west.getBlockY(), heightColor, 0x11);
+        if (y != HeightPlane.NO_HEIGHT) {
+            int west = heights[index - 1];
+            if (west != HeightPlane.NO_HEIGHT) {
+                heightColor = getColor(y, west, heightColor, 0x11);
             }
-            if (north != null) {
-                heightColor = getColor(y, north.getBlockY(), heightColor, 0x11);
+            int north = heights[index - HeightPlane.STRIDE];
+            if (north != HeightPlane.NO_HEIGHT) {
+                heightColor = getColor(y, north, heightColor, 0x11);
             }
             if (y % 2 == 1) {
                 heightColor += 0x06;
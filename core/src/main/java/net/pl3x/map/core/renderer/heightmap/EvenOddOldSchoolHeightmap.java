@@ -23,25 +23,23 @@
  */
 package net.pl3x.map.core.renderer.heightmap;
 
-import net.pl3x.map.core.world.Chunk;
-import net.pl3x.map.core.world.Region;
+import net.pl3x.map.core.world.HeightPlane;
 import org.jetbrains.annotations.NotNull;
 
-public class EvenOddOldSchoolHeightmap extends Heightmap {
+public class EvenOddOldSchoolHeightmap extends StencilHeightmap {
     public EvenOddOldSchoolHeightmap() {
         super("even_odd_old_school");
     }
 
     @Override
     @SuppressWarnings("DuplicatedCode")
-    public int getColor(@NotNull Region region, int blockX, int blockZ) {
-        Chunk.BlockData origin = region.getWorld().getChunk(region, blockX >> 4, blockZ >> 4).getData(blockX, blockZ);
-        Chunk.BlockData west = region.getWorld().getChunk(region, (blockX - 1) >> 4, blockZ >> 4).getData(blockX - 1, blockZ);
+    protected int getColor(int @NotNull [] heights, int index) {
+        int y = heights[index];
         int heightColor = 0x22;
-        if (origin != null) {
-            int y = origin.getBlockY();
-            if (west != null) {
-                heightColor = getColor(y, west.getBlockY(), heightColor, 0x22);
+        if (y != HeightPlane.NO_HEIGHT) {
+            int west = heights[index - 1];
+            if (west != HeightPlane.NO_HEIGHT) {
+                heightColor = getColor(y, west, heightColor, 0x22);
             }
             if (y % 2 == 1) {
                 heightColor += 0x11;
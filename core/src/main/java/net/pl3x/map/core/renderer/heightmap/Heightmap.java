@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Objects;
 import net.pl3x.map.core.Keyed;
 import net.pl3x.map.core.util.Mathf;
+import net.pl3x.map.core.world.HeightPlane;
 import net.pl3x.map.core.world.Region;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -41,6 +42,26 @@ public abstract class Heightmap extends Keyed {
 
     public abstract int getColor(@NotNull Region region, int blockX, int blockZ);
 
+    /**
+     * Shade every block of a region at once, indexed as {@code x + z * 512}.
+     * <p>
+     * Falls back to {@link #getColor(Region, int, int)} for each block. Heightmaps that can work
+     * off the plane's heights directly should extend {@link StencilHeightmap} instead.
+     *
+     * @param plane   region's height plane
+     * @param shading colors to fill in
+     */
+    public void shade(@NotNull HeightPlane plane, int @NotNull [] shading) {
+        Region region = plane.getRegion();
+        int minX = region.getX() << 9;
+        int minZ = region.getZ() << 9;
+        for (int z = 0; z < HeightPlane.SIZE; z++) {
+            for (int x = 0; x < HeightPlane.SIZE; x++) {
+                shading[x + (z << 9)] = getColor(region, minX + x, minZ + z);
+            }
+        }
+    }
+
     public int getColor(int y1, int y2, int heightColor, int step) {
         if (y1 > y2) {
             heightColor -= step;
@@ -23,6 +23,8 @@
  */
 package net.pl3x.map.core.renderer.heightmap;
 
+import java.util.Arrays;
+import net.pl3x.map.core.world.HeightPlane;
 import net.pl3x.map.core.world.Region;
 import org.jetbrains.annotations.NotNull;
 
@@ -35,4 +37,9 @@ public class NoneHeightmap extends Heightmap {
     public int getColor(@NotNull Region region, int blockX, int blockZ) {
         return 0x22 << 24;
     }
+
+    @Override
+    public void shade(@NotNull HeightPlane plane, int @NotNull [] shading) {
+        Arrays.fill(shading, 0x22 << 24);
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.heightmap;
+
+import net.pl3x.map.core.world.HeightPlane;
+import net.pl3x.map.core.world.Region;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Heightmap that shades a block from its own height and those of its west and north neighbors
+ * in the region's {@link HeightPlane}.
+ */
+public abstract class StencilHeightmap extends Heightmap {
+    public StencilHeightmap(@NotNull String name) {
+        super(name);
+    }
+
+    /**
+     * Get the color of the block at {@code index} in the plane's heights.
+     * <p>
+     * Its west neighbor is at {@code index - 1} and its north neighbor at
+     * {@code index - HeightPlane.STRIDE}. Missing data is {@link HeightPlane#NO_HEIGHT}.
+     *
+     * @param heights plane's heights
+     * @param index   index of the block
+     * @return heightmap color
+     */
+    protected abstract int getColor(int @NotNull [] heights, int index);
+
+    @Override
+    public int getColor(@NotNull Region region, int blockX, int blockZ) {
+        return getColor(region.getHeightPlane().getHeights(), HeightPlane.index(blockX & 511, blockZ & 511));
+    }
+
+    @Override
+    public void shade(@NotNull HeightPlane plane, int @NotNull [] shading) {
+        int[] heights = plane.getHeights();
+        for (int z = 0; z < HeightPlane.SIZE; z++) {
+            int row = z << 9;
+            int i = HeightPlane.index(0, z);
+            for (int x = 0; x < HeightPlane.SIZE; x++) {
+                shading[row + x] = getColor(heights, i++);
+            }
+        }
+    }
+}
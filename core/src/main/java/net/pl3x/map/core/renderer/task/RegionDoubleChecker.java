@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.httpd.RenderOnView;
 import net.pl3x.map.core.log.Logger;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.util.Mathf;
@@ -106,6 +107,10 @@ public class RegionDoubleChecker implements Runnable {
                             continue;
                         }
                         long state = world.getRegionModifiedState().get(Mathf.asLong(rX, rZ));
+                        if (state < 0 && RenderOnView.isEnabled()) {
+                            // never rendered, wait for someone to look at it
+                            continue;
+                        }
                         long modified = Files.getLastModifiedTime(file).toMillis();
 
                         if (state >= modified) {
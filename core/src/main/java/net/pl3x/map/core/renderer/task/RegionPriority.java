@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.markers.Point;
+import net.pl3x.map.core.player.Player;
+import net.pl3x.map.core.util.Mathf;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decides which queued regions render first.
+ * <p>
+ * A region's priority is its distance, in rings of regions, to the nearest of the world's spawn,
+ * an online player, or somewhere a player has been recently. Regions around players are moved
+ * forward again as the players move.
+ */
+public class RegionPriority {
+    /**
+     * Priority of regions someone is looking at on the map, ahead of everything else.
+     */
+    public static final long VIEWED = -1;
+
+    private static final int PLAYER_RADIUS = 4; // regions
+    private static final long VISITED_TIME = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_VISITED = 1024; // areas per world
+    private static final int CELL_SHIFT = 4;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT; // regions
+
+    private final Map<@NotNull World, @NotNull Map<@NotNull Long, @NotNull Long>> visited = new ConcurrentHashMap<>();
+
+    /**
+     * Get the priorities of regions in a world, lower renders sooner.
+     * <p>
+     * The spawn and visited areas are gathered once into a coarse grid, so scoring many regions
+     * only looks at the points in grid cells that can still beat the best distance found so far.
+     *
+     * @param world world the regions are in
+     * @return region priority lookup
+     */
+    public @NotNull ToLongFunction<@NotNull Point> getPriorities(@NotNull World world) {
+        Map<Long, Long> areas = this.visited.get(world);
+        return getPriorities(world.getSpawn(), areas == null ? Set.of() : areas.keySet());
+    }
+
+    static @NotNull ToLongFunction<@NotNull Point> getPriorities(@NotNull Point spawn, @NotNull Collection<@NotNull Long> areas) {
+        Map<Long, List<Long>> cells = new HashMap<>();
+        addPoint(cells, spawn.x() >> 9, spawn.z() >> 9);
+        for (long pos : areas) {
+            addPoint(cells, Mathf.longToX(pos), Mathf.longToZ(pos));
+        }
+        return region -> {
+            long priority = Long.MAX_VALUE;
+            for (Map.Entry<Long, List<Long>> cell : cells.entrySet()) {
+                // nearest any point in this cell can be
+                int minX = Mathf.longToX(cell.getKey()) << CELL_SHIFT;
+                int minZ = Mathf.longToZ(cell.getKey()) << CELL_SHIFT;
+                long dx = Math.max(0, Math.max(minX - region.x(), region.x() - (minX + CELL_SIZE - 1)));
+                long dz = Math.max(0, Math.max(minZ - region.z(), region.z() - (minZ + CELL_SIZE - 1)));
+                if (Math.max(dx, dz) >= priority) {
+                    continue;
+                }
+                for (long pos : cell.getValue()) {
+                    priority = Math.min(priority, distance(region, Mathf.longToX(pos), Mathf.longToZ(pos)));
+                }
+            }
+            return priority;
+        };
+    }
+
+    /**
+     * Note where players are and move the queued regions around them forward.
+     * <p>
+     * Runs as a repeating scheduler task, so players are read on the main thread.
+     */
+    public void update() {
+        long now = System.currentTimeMillis();
+        RegionProcessor processor = Pl3xMap.api().getRegionProcessor();
+        for (Player player : Pl3xMap.api().getPlayerRegistry()) {
+            if (player.isNPC()) {
+                continue;
+            }
+            World world = player.getWorld();
+            Point position = player.getPosition();
+            int regionX = position.x() >> 9;
+            int regionZ = position.z() >> 9;
+            this.visited.computeIfAbsent(world, k -> new ConcurrentHashMap<>()).put(Mathf.asLong(regionX, regionZ), now);
+
+            RegionQueue queue = processor.getQueue(world);
+            for (int x = -PLAYER_RADIUS; x <= PLAYER_RADIUS; x++) {
+                for (int z = -PLAYER_RADIUS; z <= PLAYER_RADIUS; z++) {
+                    queue.prioritize(Point.of(regionX + x, regionZ + z), Math.max(Math.abs(x), Math.abs(z)));
+                }
+            }
+        }
+
+        // forget areas nobody has been to in a while, and the oldest ones if there are too many
+        this.visited.values().forEach(areas -> {
+            areas.values().removeIf(time -> now - time > VISITED_TIME);
+            int excess = areas.size() - MAX_VISITED;
+            if (excess > 0) {
+                areas.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(areas::remove);
+            }
+        });
+    }
+
+    private static void addPoint(@NotNull Map<@NotNull Long, @NotNull List<@NotNull Long>> cells, int x, int z) {
+        cells.computeIfAbsent(Mathf.asLong(x >> CELL_SHIFT, z >> CELL_SHIFT), k -> new ArrayList<>()).add(Mathf.asLong(x, z));
+    }
+
+    private static long distance(@NotNull Point region, int x, int z) {
+        return Math.max(Math.abs(region.x() - x), Math.abs(region.z() - z));
+    }
+}
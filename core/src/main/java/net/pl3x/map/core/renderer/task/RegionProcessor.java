@@ -23,31 +23,33 @@
  */
 package net.pl3x.map.core.renderer.task;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.configuration.Config;
 import net.pl3x.map.core.log.Logger;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.renderer.progress.Progress;
 import net.pl3x.map.core.util.Mathf;
-import net.pl3x.map.core.util.SpiralIterator;
 import net.pl3x.map.core.world.World;
 import org.jetbrains.annotations.NotNull;
 
 public class RegionProcessor {
-    private final Map<@NotNull World, @NotNull Collection<@NotNull Point>> regionsToScan = new ConcurrentHashMap<>();
-    private final Deque<@NotNull Ticket> ticketsToScan = new ConcurrentLinkedDeque<>();
+    private static final int BATCH_SIZE = 64;
+
+    private final Map<@NotNull World, @NotNull RegionQueue> queues = new ConcurrentHashMap<>();
+    private final RegionPriority priority = new RegionPriority();
 
     private final Executor executor;
     private final Progress progress;
@@ -58,6 +60,7 @@ public class RegionProcessor {
 
     private long timeStarted;
     private boolean running;
+    private long scheduled;
 
     public RegionProcessor() {
         this.executor = Pl3xMap.ThreadFactory.createService("Pl3xMap-Processor");
@@ -87,7 +90,18 @@ public class RegionProcessor {
     }
 
     public Set<World> getQueuedWorlds() {
-        return this.regionsToScan.keySet();
+        return this.queues.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    public @NotNull RegionPriority getPriority() {
+        return this.priority;
+    }
+
+    public @NotNull RegionQueue getQueue(@NotNull World world) {
+        return this.queues.computeIfAbsent(world, k -> new RegionQueue());
     }
 
     public void start(long delay) {
@@ -115,15 +129,32 @@ public class RegionProcessor {
         }
     }
 
+    /**
+     * Queue regions to render, nearest to spawn and players first.
+     *
+     * @param world   world the regions are in
+     * @param regions region positions
+     * @see RegionPriority
+     */
     public void addRegions(@NotNull World world, @NotNull Collection<@NotNull Point> regions) {
+        RegionQueue queue = getQueue(world);
+        ToLongFunction<Point> priorities = this.priority.getPriorities(world);
         for (Point region : regions) {
-            Ticket ticket = new Ticket(world, region);
-            if (!this.ticketsToScan.contains(ticket)) {
-                this.ticketsToScan.add(ticket);
-            }
+            queue.add(region, priorities.applyAsLong(region));
         }
     }
 
+    /**
+     * Queue a region to render with a given priority, or move it forward if it is already queued.
+     *
+     * @param world    world the region is in
+     * @param region   region position
+     * @param priority priority, lower renders sooner. see {@link RegionPriority}
+     */
+    public void addRegion(@NotNull World world, @NotNull Point region, long priority) {
+        getQueue(world).add(region, priority);
+    }
+
     private void run() {
         if (this.running) {
             // this task is already running
@@ -137,120 +168,118 @@ public class RegionProcessor {
 
         Logger.debug("Region processor started queuing at " + this.timeStarted);
 
-        try {
-            while (!this.ticketsToScan.isEmpty()) {
-                Ticket ticket = this.ticketsToScan.poll();
-                Collection<Point> set = this.regionsToScan.getOrDefault(ticket.world, new HashSet<>());
-                set.add(ticket.region);
-                this.regionsToScan.put(ticket.world, set);
-            }
+        ExecutorService executor = Pl3xMap.api().getRenderExecutor();
 
-            Iterator<Map.Entry<World, Collection<Point>>> iter = this.regionsToScan.entrySet().iterator();
-            while (iter.hasNext()) {
-                Map.Entry<World, Collection<Point>> entry = iter.next();
-                iter.remove();
-                World world = entry.getKey();
-                Collection<Point> regions = entry.getValue();
-                process(world, regions);
+        // only hand a few regions at a time to the executor, so the queue
+        // decides what renders next even for regions added while rendering.
+        // the window rolls on across turns, so workers never wait on a turn to end
+        int window = (executor instanceof ForkJoinPool pool ? pool.getParallelism() : 1) * 2;
+        Semaphore permits = new Semaphore(window);
+        Map<World, AtomicInteger> rendering = new HashMap<>();
 
-            }
+        try {
+            do {
+                // worlds take turns, a batch at a time, until every queue is drained
+                boolean busy;
+                do {
+                    busy = false;
+                    for (Map.Entry<World, RegionQueue> entry : this.queues.entrySet()) {
+                        World world = entry.getKey();
+                        RegionQueue queue = entry.getValue();
+                        // count first, a follow-up is queued before its region counts as done
+                        AtomicInteger count = rendering.get(world);
+                        if (count != null && count.get() == 0 && queue.isEmpty()) {
+                            // this world is done, while others may still be rendering
+                            rendering.remove(world);
+                            finish(world);
+                            continue;
+                        }
+                        if (queue.isEmpty()) {
+                            continue;
+                        }
+                        if (count == null) {
+                            Logger.debug(world.getName() + " Region processor started processing at " + System.currentTimeMillis());
+                            rendering.put(world, count = new AtomicInteger());
+                        }
+                        process(world, queue, executor, permits, count);
+                        busy = true;
+                    }
+                } while (busy);
+
+                // wait for the regions still rendering
+                permits.acquireUninterruptibly(window);
+                permits.release(window);
+            } while (!getQueuedWorlds().isEmpty());
+            rendering.keySet().forEach(this::finish);
         } catch (Throwable t) {
             t.printStackTrace();
         }
 
+        // stop the progress tracker
+        getProgress().finish();
+        this.scheduled = 0;
+
         this.running = false;
         Logger.debug("Region processor finished queuing at " + System.currentTimeMillis());
     }
 
-    private void process(@NotNull World world, @NotNull Collection<@NotNull Point> regionPositions) {
-        Logger.debug(world.getName() + " Region processor started processing at " + System.currentTimeMillis());
-
-        // find max radius for spiral iterator
-        int maxRadius = 0;
-        for (Point pos : regionPositions) {
-            maxRadius = Math.max(Math.max(maxRadius, Math.abs(pos.x())), Math.abs(pos.z()));
-        }
+    private void process(@NotNull World world, @NotNull RegionQueue queue, @NotNull ExecutorService executor,
+                         @NotNull Semaphore permits, @NotNull AtomicInteger rendering) {
+        getProgress().setWorld(world);
 
-        // create spiral iterator to order region scanning
-        Point spawn = world.getSpawn();
-        SpiralIterator spiralIterator = new SpiralIterator(spawn.x() >> 9, spawn.z() >> 9, maxRadius);
-
-        // order preserved map of regions with boolean to signify if it was already scanned
-        List<Point> orderedRegionsToScan = new ArrayList<>();
-
-        // iterate the spiral
-        int numberOfSkippedRegions = 0;
-        while (spiralIterator.hasNext()) {
-            // let us not get stuck in an endless loop
-            if (numberOfSkippedRegions > 1000000) {
-                Logger.debug("Failsafe triggered.");
-                // we scanned over a million non-existent regions straight
-                // quit the spiral and add the remaining regions to the end
-                orderedRegionsToScan.addAll(regionPositions);
+        // render one batch, then hand the turn to the next world
+        for (int batch = 0; batch < BATCH_SIZE; batch++) {
+            permits.acquireUninterruptibly();
+            Point region = queue.poll();
+            if (region == null) {
+                permits.release();
                 break;
             }
 
-            // get region from spiral and ensure a region file exists for it
-            Point regionPos = spiralIterator.next();
-            if (regionPositions.remove(regionPos)) {
-                // file exists, add region to scan
-                orderedRegionsToScan.add(regionPos);
-                numberOfSkippedRegions = 0;
-            } else {
-                numberOfSkippedRegions++;
-            }
+            this.scheduled++;
+            rendering.incrementAndGet();
+            getProgress().setTotalRegions(this.scheduled + getQueuedRegions());
+            getProgress().setTotalChunks(getProgress().getTotalRegions() * 1024L);
+
+            CompletableFuture.runAsync(new RegionScanTask(world, region), executor)
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            throwable.printStackTrace();
+                        }
+
+                        // set region modified time
+                        world.getRegionModifiedState().set(Mathf.asLong(region), this.timeStarted);
+
+                        // let a follow-up render through, if one was asked for meanwhile
+                        queue.done(region);
+                        rendering.decrementAndGet();
+                        permits.release();
+
+                        // run the garbage collector
+                        if (Config.GC_WHEN_RUNNING) {
+                            System.gc();
+                        }
+                    });
         }
-
-        // create and send tasks to executor to run
-        schedule(world, orderedRegionsToScan);
-
-        Logger.debug(world.getName() + " Region processor finished processing at " + System.currentTimeMillis());
     }
 
-    private void schedule(@NotNull World world, @NotNull List<@NotNull Point> orderedRegionsToScan) {
-        getProgress().setWorld(world);
-        getProgress().setTotalRegions(orderedRegionsToScan.size());
-        getProgress().setTotalChunks(getProgress().getTotalRegions() * 1024L);
-
-        CompletableFuture.allOf(orderedRegionsToScan.stream()
-                .map(pos -> CompletableFuture.runAsync(new RegionScanTask(world, pos), Pl3xMap.api().getRenderExecutor())
-                        .whenComplete((result, throwable) -> {
-                            if (throwable != null) {
-                                throwable.printStackTrace();
-                            }
-
-                            // set region modified time
-                            world.getRegionModifiedState().set(Mathf.asLong(pos), this.timeStarted);
-
-                            // run the garbage collector
-                            if (Config.GC_WHEN_RUNNING) {
-                                System.gc();
-                            }
-                        })
-                ).toArray(CompletableFuture[]::new)
-        ).whenComplete((result, throwable) -> {
-            if (throwable != null) {
-                throwable.printStackTrace();
-            }
+    private void finish(@NotNull World world) {
+        // free up some memory
+        world.cleanup();
 
-            // stop the progress tracker
-            getProgress().finish();
-
-            // free up some memory
-            world.cleanup();
-
-            // run the garbage collector
-            if (Config.GC_WHEN_FINISHED) {
-                System.gc();
-            }
-
-            // consider task as no longer running
-            this.running = false;
+        // run the garbage collector
+        if (Config.GC_WHEN_FINISHED) {
+            System.gc();
+        }
 
-            Logger.debug(world.getName() + " Region processor finished task at " + System.currentTimeMillis());
-        }).join();
+        Logger.debug(world.getName() + " Region processor finished task at " + System.currentTimeMillis());
     }
 
-    private record Ticket(@NotNull World world, @NotNull Point region) {
+    private long getQueuedRegions() {
+        long size = 0;
+        for (RegionQueue queue : this.queues.values()) {
+            size += queue.size();
+        }
+        return size;
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.task;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import net.pl3x.map.core.markers.Point;
+import net.pl3x.map.core.util.Mathf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Regions of a world waiting to be rendered, lowest priority value first.
+ * <p>
+ * Regions are keyed by their packed position, so adding one that is already queued is a
+ * lookup instead of a scan. Adding it again only ever moves it forward. Adding a region
+ * that is being rendered right now queues a single follow-up render for when it is done,
+ * however many times it gets added in the meantime.
+ */
+public class RegionQueue {
+    private final Map<@NotNull Long, @NotNull Long> pending = new HashMap<>();
+    private final Map<@NotNull Long, @NotNull Long> followUps = new HashMap<>();
+    private final Set<@NotNull Long> rendering = new HashSet<>();
+    // may hold stale entries for regions that were moved forward, they are skipped on poll
+    private final PriorityQueue<@NotNull Entry> order = new PriorityQueue<>();
+
+    /**
+     * Queue a region, or move it forward if it is already queued with a higher priority value.
+     *
+     * @param region   region position
+     * @param priority priority, lower renders sooner
+     */
+    public synchronized void add(@NotNull Point region, long priority) {
+        long pos = Mathf.asLong(region);
+        if (this.rendering.contains(pos)) {
+            this.followUps.merge(pos, priority, Math::min);
+            return;
+        }
+        Long current = this.pending.get(pos);
+        if (current == null || priority < current) {
+            this.pending.put(pos, priority);
+            this.order.add(new Entry(pos, priority));
+        }
+    }
+
+    /**
+     * Queue a region someone is waiting on, or move it forward if it is already queued.
+     * <p>
+     * Unlike {@link #add(Point, long)}, a region that is being rendered right now is left
+     * alone, as that render already produces what they are waiting for.
+     *
+     * @param region   region position
+     * @param priority priority, lower renders sooner
+     */
+    public synchronized void request(@NotNull Point region, long priority) {
+        if (!this.rendering.contains(Mathf.asLong(region))) {
+            add(region, priority);
+        }
+    }
+
+    /**
+     * Move a region forward if it is queued with a higher priority value, without queueing it otherwise.
+     *
+     * @param region   region position
+     * @param priority priority, lower renders sooner
+     */
+    public synchronized void prioritize(@NotNull Point region, long priority) {
+        long pos = Mathf.asLong(region);
+        Long followUp = this.followUps.get(pos);
+        if (followUp != null && priority < followUp) {
+            this.followUps.put(pos, priority);
+        }
+        Long current = this.pending.get(pos);
+        if (current != null && priority < current) {
+            this.pending.put(pos, priority);
+            this.order.add(new Entry(pos, priority));
+        }
+    }
+
+    /**
+     * Take the next region to render, marking it as being rendered.
+     *
+     * @return next region, or null if nothing is queued
+     */
+    public synchronized @Nullable Point poll() {
+        Entry entry;
+        while ((entry = this.order.poll()) != null) {
+            Long priority = this.pending.get(entry.pos());
+            if (priority == null || priority != entry.priority()) {
+                continue;
+            }
+            this.pending.remove(entry.pos());
+            this.rendering.add(entry.pos());
+            return Point.of(Mathf.longToX(entry.pos()), Mathf.longToZ(entry.pos()));
+        }
+        return null;
+    }
+
+    /**
+     * Mark a region from {@link #poll()} as done, queueing its follow-up render if it was added again meanwhile.
+     *
+     * @param region region position
+     */
+    public synchronized void done(@NotNull Point region) {
+        long pos = Mathf.asLong(region);
+        this.rendering.remove(pos);
+        Long followUp = this.followUps.remove(pos);
+        if (followUp != null) {
+            add(region, followUp);
+        }
+    }
+
+    public synchronized int size() {
+        return this.pending.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.pending.isEmpty();
+    }
+
+    private record Entry(long pos, long priority) implements Comparable<@NotNull Entry> {
+        @Override
+        public int compareTo(@NotNull Entry other) {
+            return Long.compare(this.priority, other.priority);
+        }
+    }
+}
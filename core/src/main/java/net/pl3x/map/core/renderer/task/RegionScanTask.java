@@ -114,9 +114,14 @@ public class RegionScanTask implements Runnable {
     }
 
     private void scanRegion(@NotNull Region region) {
-        for (Renderer renderer : this.renderers.values()) {
-            Pl3xMap.api().getRegionProcessor().checkPaused();
-            renderer.scanData(region);
+        try {
+            for (Renderer renderer : this.renderers.values()) {
+                Pl3xMap.api().getRegionProcessor().checkPaused();
+                renderer.scanData(region);
+            }
+        } finally {
+            // region stays cached for its neighbors, its heights don't need to
+            region.clearHeightPlane();
         }
         Pl3xMap.api().getRegionProcessor().getProgress().increment();
     }
@@ -25,33 +25,60 @@ package net.pl3x.map.core.renderer.task;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import java.lang.reflect.Type;
+import com.google.gson.JsonParser;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import net.pl3x.map.core.markers.JsonObjectWrapper;
+import java.util.stream.Stream;
+import net.pl3x.map.core.markers.BinaryMarkerWriter;
+import net.pl3x.map.core.markers.Bounds;
+import net.pl3x.map.core.markers.JsonWriterWrapper;
+import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.layer.Layer;
+import net.pl3x.map.core.markers.marker.Icon;
 import net.pl3x.map.core.markers.marker.Marker;
+import net.pl3x.map.core.markers.option.Options;
 import net.pl3x.map.core.scheduler.Task;
 import net.pl3x.map.core.util.FileUtil;
+import net.pl3x.map.core.util.Mathf;
 import net.pl3x.map.core.world.World;
 import org.jetbrains.annotations.NotNull;
 
 public class UpdateMarkerData extends Task {
+    // markers spanning more regions than this go into the layer's global file instead
+    private static final int MAX_TILE_SPAN = 64;
+    private static final String GLOBAL = "global";
+    private static final String INDEX = "index.json";
+    // icons are clustered on a grid of this many pixels at every zoom level
+    private static final int CLUSTER_CELL_SIZE = 64;
+    // bytes of a tile's digest kept in the index, plenty to never mistake a changed tile for an unchanged one
+    private static final int HASH_LENGTH = 16;
+
     private final Gson gson = new GsonBuilder()
             //.setPrettyPrinting()
             .disableHtmlEscaping()
             .serializeNulls()
             .setLenient()
-            .registerTypeHierarchyAdapter(Marker.class, new Adapter())
             .create();
 
     private final World world;
     private final Map<@NotNull String, @NotNull Long> lastUpdated = new HashMap<>();
+    private final Map<@NotNull String, @NotNull Map<@NotNull String, @NotNull String>> tileHashes = new HashMap<>();
 
     public UpdateMarkerData(@NotNull World world) {
         super(20, true);
@@ -81,7 +108,17 @@ public class UpdateMarkerData extends Task {
 
                 if (now - lastUpdate > layer.getUpdateInterval()) {
                     List<Marker<?>> list = new ArrayList<>(layer.getMarkers());
-                    FileUtil.writeJson(this.gson.toJson(list), this.world.getMarkersDirectory().resolve(key.replace(":", "-") + ".json"));
+                    deleteStaleFiles(key, layer);
+                    if (layer.isTiled()) {
+                        writeTiledMarkers(key, list, layer);
+                    } else if (layer.isBinary()) {
+                        FileUtil.writeBytes(toBinary(list), this.world.getMarkersDirectory().resolve(key.replace(":", "-") + ".bin"));
+                    } else {
+                        FileUtil.writeJson(writer -> writeMarkers(list, layer.isSharedOptions(), writer), this.world.getMarkersDirectory().resolve(key.replace(":", "-") + ".json"));
+                    }
+                    if (layer.isClustered()) {
+                        writeClusters(key, list);
+                    }
                     this.lastUpdated.put(key, now);
                 }
             } catch (Throwable t) {
@@ -92,14 +129,234 @@ public class UpdateMarkerData extends Task {
         FileUtil.writeJson(this.gson.toJson(layers), this.world.getTilesDirectory().resolve("markers.json"));
     }
 
-    private static class Adapter implements JsonSerializer<@NotNull Marker<?>> {
-        @Override
-        public @NotNull JsonElement serialize(@NotNull Marker<?> marker, @NotNull Type type, @NotNull JsonSerializationContext context) {
-            JsonObjectWrapper wrapper = new JsonObjectWrapper();
+    private void deleteStaleFiles(@NotNull String key, @NotNull Layer layer) throws IOException {
+        // files the layer wrote before switching between tiled, binary or clustered
+        Path dir = this.world.getMarkersDirectory();
+        String name = key.replace(":", "-");
+        if (layer.isTiled()) {
+            Files.deleteIfExists(dir.resolve(name + ".json"));
+            Files.deleteIfExists(dir.resolve(name + ".bin"));
+        } else {
+            if (Files.isDirectory(dir.resolve(name))) {
+                FileUtil.deleteDirectory(dir.resolve(name));
+            }
+            this.tileHashes.remove(key);
+            Files.deleteIfExists(dir.resolve(name + (layer.isBinary() ? ".json" : ".bin")));
+        }
+        if (!layer.isClustered()) {
+            Files.deleteIfExists(dir.resolve(name + ".clusters.json"));
+        }
+    }
+
+    private void writeTiledMarkers(@NotNull String key, @NotNull List<Marker<?>> markers, @NotNull Layer layer) throws IOException {
+        // sort markers into the regions their bounds touch
+        Map<String, List<Marker<?>>> tiles = new LinkedHashMap<>();
+        for (Marker<?> marker : markers) {
+            Bounds bounds = marker.getBounds();
+            if (bounds == null || bounds.regionCount() > MAX_TILE_SPAN) {
+                tiles.computeIfAbsent(GLOBAL, k -> new ArrayList<>()).add(marker);
+                continue;
+            }
+            for (int x = bounds.minRegionX(); x <= bounds.maxRegionX(); x++) {
+                for (int z = bounds.minRegionZ(); z <= bounds.maxRegionZ(); z++) {
+                    tiles.computeIfAbsent(x + "_" + z, k -> new ArrayList<>()).add(marker);
+                }
+            }
+        }
+
+        // only rewrite tiles whose markers changed, the index tells the webmap which ones to refetch
+        Path dir = this.world.getMarkersDirectory().resolve(key.replace(":", "-"));
+        Map<String, String> lastHashes = this.tileHashes.get(key);
+        if (lastHashes == null) {
+            // pick up where the last run left off, instead of rewriting every tile after a restart
+            lastHashes = readIndex(dir.resolve(INDEX));
+        }
+        Map<String, String> hashes = new LinkedHashMap<>();
+        boolean binary = layer.isBinary();
+        boolean shared = layer.isSharedOptions();
+        String extension = binary ? ".bin" : ".json";
+        for (Map.Entry<String, List<Marker<?>>> entry : tiles.entrySet()) {
+            List<Marker<?>> tile = entry.getValue();
+            Path file = dir.resolve(entry.getKey() + extension);
+            byte[] bytes = binary ? toBinary(tile) : null;
+            String hash = bytes != null ? hash(bytes) : hash(tile, shared);
+            if (!hash.equals(lastHashes.get(entry.getKey())) || !Files.exists(file)) {
+                if (bytes != null) {
+                    FileUtil.writeBytes(bytes, file);
+                } else {
+                    FileUtil.writeJson(writer -> writeMarkers(tile, shared, writer), file);
+                }
+            }
+            hashes.put(entry.getKey(), hash);
+        }
+        FileUtil.writeJson(this.gson.toJson(hashes), dir.resolve(INDEX));
+        this.tileHashes.put(key, hashes);
+
+        // drop tiles that no longer hold markers, also ones left behind by a restart or in the other format
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.equals(INDEX)) {
+                    continue;
+                }
+                if (!name.endsWith(extension) || !hashes.containsKey(name.substring(0, name.length() - extension.length()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private @NotNull Map<@NotNull String, @NotNull String> readIndex(@NotNull Path file) {
+        Map<String, String> hashes = new HashMap<>();
+        if (!Files.exists(file)) {
+            return hashes;
+        }
+        try (Reader reader = Files.newBufferedReader(file)) {
+            JsonParser.parseReader(reader).getAsJsonObject().entrySet()
+                    .forEach(entry -> hashes.put(entry.getKey(), entry.getValue().getAsString()));
+        } catch (Throwable t) {
+            // every tile gets rewritten once
+            t.printStackTrace();
+            hashes.clear();
+        }
+        return hashes;
+    }
+
+    private void writeClusters(@NotNull String key, @NotNull List<Marker<?>> markers) {
+        List<Icon> icons = new ArrayList<>();
+        for (Marker<?> marker : markers) {
+            if (marker instanceof Icon icon) {
+                icons.add(icon);
+            }
+        }
+
+        // per zoom level, every grid cell holding more than one icon becomes a cluster
+        Map<String, List<int[]>> zooms = new LinkedHashMap<>();
+        for (int zoom = 0; zoom <= this.world.getConfig().ZOOM_MAX_OUT; zoom++) {
+            int cellSize = CLUSTER_CELL_SIZE << zoom;
+            Map<Long, Cluster> cells = new LinkedHashMap<>();
+            for (Icon icon : icons) {
+                Point point = icon.getPoint();
+                int cellX = Math.floorDiv(point.x(), cellSize);
+                int cellZ = Math.floorDiv(point.z(), cellSize);
+                cells.computeIfAbsent(Mathf.asLong(cellX, cellZ), k -> new Cluster(cellX, cellZ)).add(point);
+            }
+            List<int[]> clusters = new ArrayList<>();
+            for (Cluster cluster : cells.values()) {
+                if (cluster.count > 1) {
+                    clusters.add(cluster.toArray());
+                }
+            }
+            zooms.put(Integer.toString(zoom), clusters);
+        }
+
+        FileUtil.writeJson(this.gson.toJson(zooms), this.world.getMarkersDirectory().resolve(key.replace(":", "-") + ".clusters.json"));
+    }
+
+    private @NotNull Map<@NotNull Options, @NotNull Integer> getStyles(@NotNull List<Marker<?>> markers) {
+        // markers sharing a style reference it by index instead of repeating it
+        Map<Options, Integer> styles = new LinkedHashMap<>();
+        for (Marker<?> marker : markers) {
+            Options options = marker.getOptions();
+            if (options != null) {
+                styles.putIfAbsent(options, styles.size());
+            }
+        }
+        return styles;
+    }
+
+    private void writeMarkers(@NotNull List<Marker<?>> markers, boolean shared, @NotNull Writer writer) throws IOException {
+        // stream straight to the file instead of building a json tree for the whole layer
+        JsonWriterWrapper wrapper = new JsonWriterWrapper(this.gson.newJsonWriter(writer));
+        if (!shared) {
+            wrapper.beginArray();
+            for (Marker<?> marker : markers) {
+                wrapper.beginObject();
+                wrapper.addProperty("type", marker.getType());
+                wrapper.addProperty("data", marker);
+                wrapper.addProperty("options", marker.getOptions());
+                wrapper.endObject();
+            }
+            wrapper.endArray();
+            return;
+        }
+
+        Map<Options, Integer> styles = getStyles(markers);
+        wrapper.beginObject();
+        wrapper.getJsonWriter().name("options").beginArray();
+        for (Options options : styles.keySet()) {
+            wrapper.value(options);
+        }
+        wrapper.endArray();
+        wrapper.getJsonWriter().name("markers").beginArray();
+        for (Marker<?> marker : markers) {
+            wrapper.beginObject();
             wrapper.addProperty("type", marker.getType());
             wrapper.addProperty("data", marker);
-            wrapper.addProperty("options", marker.getOptions());
-            return wrapper.getJsonObject();
+            Options options = marker.getOptions();
+            wrapper.addProperty("options", options == null ? null : styles.get(options));
+            wrapper.endObject();
+        }
+        wrapper.endArray();
+        wrapper.endObject();
+    }
+
+    private @NotNull String hash(@NotNull List<Marker<?>> markers, boolean shared) throws IOException {
+        // run the json through the digest instead of holding on to it
+        MessageDigest digest = newDigest();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(OutputStream.nullOutputStream(), digest), StandardCharsets.UTF_8))) {
+            writeMarkers(markers, shared, writer);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, HASH_LENGTH);
+    }
+
+    private @NotNull String hash(byte @NotNull [] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes), 0, HASH_LENGTH);
+    }
+
+    private @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte @NotNull [] toBinary(@NotNull List<Marker<?>> markers) throws IOException {
+        return BinaryMarkerWriter.encode(getStyles(markers), markers);
+    }
+
+    private static class Cluster {
+        private final int cellX;
+        private final int cellZ;
+        private int count;
+        private long sumX;
+        private long sumZ;
+        private int minX = Integer.MAX_VALUE;
+        private int minZ = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private int maxZ = Integer.MIN_VALUE;
+
+        private Cluster(int cellX, int cellZ) {
+            this.cellX = cellX;
+            this.cellZ = cellZ;
+        }
+
+        private void add(@NotNull Point point) {
+            this.count++;
+            this.sumX += point.x();
+            this.sumZ += point.z();
+            this.minX = Math.min(this.minX, point.x());
+            this.minZ = Math.min(this.minZ, point.z());
+            this.maxX = Math.max(this.maxX, point.x());
+            this.maxZ = Math.max(this.maxZ, point.z());
+        }
+
+        private int @NotNull [] toArray() {
+            // cell, count, average position, bounds
+            return new int[]{this.cellX, this.cellZ, this.count,
+                    (int) Math.floorDiv(this.sumX, this.count), (int) Math.floorDiv(this.sumZ, this.count),
+                    this.minX, this.minZ, this.maxX, this.maxZ};
         }
     }
 }
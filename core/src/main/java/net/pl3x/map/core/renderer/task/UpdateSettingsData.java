@@ -169,6 +169,9 @@ public class UpdateSettingsData extends Task {
 
         Map<String, Object> map = new LinkedHashMap<>();
         map.put("format", Config.WEB_TILE_FORMAT);
+        map.put("tileFeed", Config.HTTPD_ENABLED);
+        map.put("tileBatch", Config.HTTPD_ENABLED && Config.HTTPD_BATCH_TILES);
+        map.put("mapWindow", Config.HTTPD_ENABLED && Config.HTTPD_MAP_WINDOWS);
         map.put("maxPlayers", Pl3xMap.api().getMaxPlayers());
         map.put("lang", lang);
         map.put("zoom", zoom);
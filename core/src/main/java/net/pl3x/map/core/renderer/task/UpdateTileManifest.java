@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.task;
+
+import java.util.concurrent.CompletableFuture;
+import net.pl3x.map.core.scheduler.Task;
+import net.pl3x.map.core.world.World;
+import org.jetbrains.annotations.NotNull;
+
+public class UpdateTileManifest extends Task {
+    private final World world;
+
+    private CompletableFuture<@NotNull Void> future;
+
+    public UpdateTileManifest(@NotNull World world) {
+        super(1, true);
+        this.world = world;
+    }
+
+    @Override
+    public void run() {
+        if (this.future != null && !this.future.isDone()) {
+            return; // still writing the last batch
+        }
+        // keep file io off the server thread
+        this.future = CompletableFuture.runAsync(() -> {
+            try {
+                this.world.getTileManifest().flush();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+        });
+    }
+}
@@ -27,6 +27,10 @@ import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 import javax.imageio.ImageIO;
 import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.world.Biome;
@@ -40,6 +44,13 @@ public class Colors {
     private static final int[] mapGrass;
     private static final int[] mapFoliage;
 
+    private static final Map<@NotNull String, @NotNull ToIntFunction<@NotNull BlockState>> blockColorRules = new ConcurrentHashMap<>();
+    private static final AtomicInteger blockColorVersion = new AtomicInteger();
+
+    // blend() of a black overlay (heightmap, darkness) onto an opaque color, by overlay alpha and channel
+    private static final byte[] shadeChannels = new byte[256 * 256];
+    private static final int[] shadeAlphas = new int[256];
+
     static {
         int[] grass, foliage;
         try {
@@ -62,6 +73,62 @@ public class Colors {
 
         mapGrass = grass;
         mapFoliage = foliage;
+
+        ToIntFunction<BlockState> stem = state -> {
+            int age = state.getAge();
+            return rgb(age << 5, 0xFF - (age << 3), age << 2);
+        };
+        registerBlockColor("minecraft:melon_stem", stem);
+        registerBlockColor("minecraft:pumpkin_stem", stem);
+        registerBlockColor("minecraft:wheat", state -> lerpRGB(0x007C00, 0xDCBB65, (state.getAge() + 1) / 8F));
+        registerBlockColor("minecraft:cocoa", state -> switch (state.getAge()) {
+            case 0 -> 0x6A682E;
+            case 1 -> 0x654721;
+            default -> 0x703715;
+        });
+        registerBlockColor("minecraft:farmland", state -> state.getMoisture() >= 7 ? 0x512C0F : 0x8E6646);
+    }
+
+    static {
+        // same maths as blend(), so the results are identical
+        for (int alpha = 0; alpha < 256; alpha++) {
+            double a0 = (double) alpha / 0xFF;
+            double a1 = (double) 0xFF / 0xFF;
+            double a = a0 + a1 * (1 - a0);
+            shadeAlphas[alpha] = (int) a * 0xFF;
+            for (int channel = 0; channel < 256; channel++) {
+                shadeChannels[(alpha << 8) | channel] = (byte) (int) ((0 * a0 + channel * a1 * (1 - a0)) / a);
+            }
+        }
+    }
+
+    /**
+     * Register a color rule for a block.
+     * <p>
+     * The rule is run once for each distinct state of the block, the first time that state is rendered,
+     * so it has to depend only on the state (age, moisture, power) and not on the location. Registering
+     * or unregistering a rule has all states work out their color again.
+     *
+     * @param id   block id
+     * @param rule color of a state of the block
+     */
+    public static void registerBlockColor(@NotNull String id, @NotNull ToIntFunction<@NotNull BlockState> rule) {
+        blockColorRules.put(id, rule);
+        blockColorVersion.incrementAndGet();
+    }
+
+    public static void unregisterBlockColor(@NotNull String id) {
+        blockColorRules.remove(id);
+        blockColorVersion.incrementAndGet();
+    }
+
+    /**
+     * Get the current version of the block color rules, which changes every time a rule is registered or unregistered.
+     *
+     * @return block color rules version
+     */
+    public static int getBlockColorVersion() {
+        return blockColorVersion.get();
     }
 
     private static int[] getColorsFromImage(@NotNull BufferedImage image) {
@@ -200,6 +267,14 @@ public class Colors {
      * @see <a href="https://en.wikipedia.org/wiki/Alpha_compositing#Alpha_blending">Alpha Blending</a>
      */
     public static int blend(int color0, int color1) {
+        if ((color0 & 0xFFFFFF) == 0 && (color1 >>> 24) == 0xFF) {
+            // black overlay on an opaque color, the common case
+            int i = (color0 >>> 16) & 0xFF00;
+            return argb(shadeAlphas[i >> 8],
+                    shadeChannels[i | red(color1)] & 0xFF,
+                    shadeChannels[i | green(color1)] & 0xFF,
+                    shadeChannels[i | blue(color1)] & 0xFF);
+        }
         double a0 = (double) alpha(color0) / 0xFF;
         double a1 = (double) alpha(color1) / 0xFF;
         double a = a0 + a1 * (1 - a0);
@@ -243,7 +318,7 @@ public class Colors {
                 if (x2 == x && z2 == z) {
                     continue;
                 }
-                Chunk.BlockData data = region.getWorld().getChunk(region, x2 >> 4, z2 >> 4).getData(x2, z2); // 3%
+                Chunk.BlockData data = region.getWorld().getMarginData(region, x2, z2); // 3%
                 if (data == null) {
                     continue;
                 }
@@ -260,41 +335,45 @@ public class Colors {
     }
 
     public static int fixBlockColor(@NotNull Region region, @NotNull Biome biome, @NotNull BlockState blockstate, int x, int z) {
+        BlockColor color = blockstate.getBlockColor();
+        return switch (color.kind()) {
+            case FOLIAGE -> getFoliageColor(region, biome, color.color(), x, z);
+            case GRASS -> getGrassColor(region, biome, color.color(), x, z);
+            case WATER -> getWaterColor(region, biome, x, z);
+            case POWER -> Pl3xMap.api().getColorForPower(blockstate.getPower());
+            case CONSTANT -> color.color();
+        };
+    }
+
+    /**
+     * Work out how a block state is colored, done once per state instead of per pixel.
+     *
+     * @param blockstate block state
+     * @return block state's color
+     */
+    public static @NotNull BlockColor compileBlockColor(@NotNull BlockState blockstate) {
+        // read before the rules, so a rule changing meanwhile leaves this color outdated instead of lost
+        int version = getBlockColorVersion();
         int color = blockstate.getBlock().color();
         if (color <= 0) {
-            return 0;
+            return new BlockColor(BlockColor.Kind.CONSTANT, 0, version);
         }
         if (blockstate.getBlock().isFoliage()) {
-            return getFoliageColor(region, biome, color, x, z);
+            return new BlockColor(BlockColor.Kind.FOLIAGE, color, version);
         }
         if (blockstate.getBlock().isGrass()) {
-            return getGrassColor(region, biome, color, x, z);
+            return new BlockColor(BlockColor.Kind.GRASS, color, version);
         }
         if (blockstate.getBlock().isWater()) {
-            return getWaterColor(region, biome, x, z);
+            return new BlockColor(BlockColor.Kind.WATER, color, version);
         }
         String key = blockstate.getBlock().getKey();
-        if (key.equals("minecraft:melon_stem") || key.equals("minecraft:pumpkin_stem")) {
-            int age = blockstate.getAge();
-            return rgb(age << 5, 0xFF - (age << 3), age << 2);
-        }
-        if (key.equals("minecraft:wheat")) {
-            return lerpRGB(0x007C00, 0xDCBB65, (blockstate.getAge() + 1) / 8F);
-        }
         if (key.equals("minecraft:redstone_wire")) {
-            return Pl3xMap.api().getColorForPower(blockstate.getPower());
-        }
-        if (key.equals("minecraft:cocoa")) {
-            return switch (blockstate.getAge()) {
-                case 0 -> 0x6A682E;
-                case 1 -> 0x654721;
-                default -> 0x703715;
-            };
-        }
-        if (key.equals("minecraft:farmland")) {
-            return blockstate.getMoisture() >= 7 ? 0x512C0F : 0x8E6646;
+            // depends on the platform's power colors
+            return new BlockColor(BlockColor.Kind.POWER, color, version);
         }
-        return blockstate.getBlock().color();
+        ToIntFunction<BlockState> rule = blockColorRules.get(key);
+        return new BlockColor(BlockColor.Kind.CONSTANT, rule == null ? color : rule.applyAsInt(blockstate), version);
     }
 
     public static int rgb(int red, int green, int blue) {
@@ -339,4 +418,17 @@ public class Colors {
 
     public interface Sampler extends TriFunction<@NotNull Biome, @NotNull Integer, @NotNull Integer, @NotNull Integer> {
     }
+
+    /**
+     * How a block state is colored.
+     *
+     * @param kind    kind of coloring
+     * @param color   block color, final for {@link Kind#CONSTANT}, the color to tint otherwise
+     * @param version {@link Colors#getBlockColorVersion() block color rules version} this was worked out with
+     */
+    public record BlockColor(@NotNull Kind kind, int color, int version) {
+        public enum Kind {
+            CONSTANT, FOLIAGE, GRASS, WATER, POWER
+        }
+    }
 }
@@ -25,6 +25,7 @@ package net.pl3x.map.core.util;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -156,6 +157,38 @@ public class FileUtil {
         }
     }
 
+    public static void writeJson(@NotNull WriterConsumer consumer, @NotNull Path file) {
+        Path tmp = tmp(file);
+        try (
+                OutputStream fileOut = Files.newOutputStream(mkDirs(tmp));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(fileOut, StandardCharsets.UTF_8))
+        ) {
+            consumer.accept(writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            atomicMove(tmp, file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void writeBytes(byte @NotNull [] bytes, @NotNull Path file) {
+        Path tmp = tmp(file);
+        try {
+            Files.write(mkDirs(tmp), bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            atomicMove(tmp, file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static void saveGzip(@NotNull String json, @NotNull Path file) throws IOException {
         Path tmp = tmp(file);
         try (
@@ -305,4 +338,9 @@ public class FileUtil {
         }
         return regions;
     }
+
+    @FunctionalInterface
+    public interface WriterConsumer {
+        void accept(@NotNull Writer writer) throws IOException;
+    }
 }
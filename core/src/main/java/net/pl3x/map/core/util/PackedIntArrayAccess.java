@@ -24,6 +24,8 @@
  */
 package net.pl3x.map.core.util;
 
+import org.jetbrains.annotations.NotNull;
+
 public class PackedIntArrayAccess {
     private static final int[] INDEX_PARAMETERS = new int[]{
             -1, -1, 0,
@@ -124,4 +126,22 @@ public class PackedIntArrayAccess {
         return (int) ((long) i * l + m >> 32 >> this.indexShift);
     }
 
+    /**
+     * Unpack the first {@code out.length} elements, a whole long at a time.
+     *
+     * @param out array to unpack into
+     * @return {@code out}
+     */
+    public int @NotNull [] unpack(int @NotNull [] out) {
+        int i = 0;
+        for (int j = 0; j < this.data.length && i < out.length; j++) {
+            long l = this.data[j];
+            int end = Math.min(i + this.elementsPerLong, out.length);
+            while (i < end) {
+                out[i++] = (int) (l & this.maxValue);
+                l >>>= this.bitsPerElement;
+            }
+        }
+        return out;
+    }
 }
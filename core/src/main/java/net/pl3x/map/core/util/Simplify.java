@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import net.pl3x.map.core.markers.Point;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Douglas-Peucker line simplification, expressed as zoom levels.
+ * <p>
+ * Instead of simplifying a line once per zoom level, every point gets the highest zoom out
+ * level at which it still moves the drawn line by at least one pixel. At zoom out level
+ * {@code z} one pixel covers {@code 2^z} blocks, so the line for that level is simply all
+ * points with a level of at least {@code z}. Negative levels are only needed when zoomed in
+ * past the native tile resolution.
+ */
+public class Simplify {
+    /**
+     * Level of points that are always needed, like the end points of a line.
+     */
+    public static final int ALWAYS = 127;
+    /**
+     * Level of points that never change the drawn line, like points in the middle of a straight line.
+     */
+    public static final int NEVER = Integer.MIN_VALUE;
+
+    private static final int MIN_LEVEL = -32;
+
+    /**
+     * Get the zoom level for each point of a line.
+     *
+     * @param points points of a line
+     * @return zoom level for each point
+     */
+    public static int @NotNull [] zoomLevels(@NotNull List<@NotNull Point> points) {
+        int size = points.size();
+        int[] levels = new int[size];
+        if (size == 0) {
+            return levels;
+        }
+
+        // how far off the line each point is when it gets dropped, capped by the point it was split from
+        double[] significance = new double[size];
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[size - 1] = Double.POSITIVE_INFINITY;
+
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[]{0, size - 1});
+        while (!segments.isEmpty()) {
+            int[] segment = segments.pop();
+            int start = segment[0];
+            int end = segment[1];
+            if (end - start < 2) {
+                continue;
+            }
+            int farthest = start + 1;
+            double distance = -1;
+            for (int i = start + 1; i < end; i++) {
+                double dist = distance(points.get(i), points.get(start), points.get(end));
+                if (dist > distance) {
+                    distance = dist;
+                    farthest = i;
+                }
+            }
+            significance[farthest] = Math.min(distance, Math.min(significance[start], significance[end]));
+            segments.push(new int[]{start, farthest});
+            segments.push(new int[]{farthest, end});
+        }
+
+        for (int i = 0; i < size; i++) {
+            double sig = significance[i];
+            if (sig == Double.POSITIVE_INFINITY) {
+                levels[i] = ALWAYS;
+            } else if (sig <= 0) {
+                levels[i] = NEVER;
+            } else {
+                levels[i] = Mathf.clamp(MIN_LEVEL, ALWAYS - 1, (int) Math.floor(Math.log(sig) / Math.log(2)));
+            }
+        }
+        return levels;
+    }
+
+    private static double distance(@NotNull Point point, @NotNull Point start, @NotNull Point end) {
+        double dx = end.x() - start.x();
+        double dz = end.z() - start.z();
+        double lengthSq = dx * dx + dz * dz;
+        double t = lengthSq == 0 ? 0 : Mathf.clamp(0D, 1D, ((point.x() - start.x()) * dx + (point.z() - start.z()) * dz) / lengthSq);
+        double x = start.x() + t * dx - point.x();
+        double z = start.z() + t * dz - point.z();
+        return Math.sqrt(x * x + z * z);
+    }
+}
@@ -6,8 +6,16 @@ package net.pl3x.map.core.world;
 import org.jetbrains.annotations.NotNull;
 
 public class BiomeManager {
+    private static final int CELL_CACHE_BITS = 12;
+    private static final int CELL_CACHE_MASK = (1 << CELL_CACHE_BITS) - 1;
+
     private final long hashedSeed;
 
+    // jitter of recently used 4x4x4 cells. it only depends on the cell and the seed,
+    // and neighboring columns share most of their 8 cells, so this saves nearly all
+    // of the salting. direct mapped, a collision just recomputes the cell.
+    private final Cell[] cells = new Cell[1 << CELL_CACHE_BITS];
+
     public BiomeManager(long hashedSeed) {
         this.hashedSeed = hashedSeed;
     }
@@ -34,7 +42,8 @@ public class BiomeManager {
             double h = bl ? d : d - 1.0D;
             double t = bl2 ? e : e - 1.0D;
             double u = bl3 ? f : f - 1.0D;
-            double v = getFiddledDistance(this.hashedSeed, q, r, s, h, t, u);
+            Cell cell = getCell(q, r, s);
+            double v = square(u + cell.z) + square(t + cell.y) + square(h + cell.x);
             if (g > v) {
                 o = p;
                 g = v;
@@ -43,22 +52,27 @@ public class BiomeManager {
         x = ((o & 4) == 0 ? l : l + 1) << 2;
         y = ((o & 2) == 0 ? m : m + 1) << 2;
         z = ((o & 1) == 0 ? n : n + 1) << 2;
-        return region.getWorld().getChunk(region, x >> 4, z >> 4).getBiome(x, y, z);
+        return region.getWorld().readChunk(region, x >> 4, z >> 4).getBiome(x, y, z);
     }
 
-    private double getFiddledDistance(long seed, int i, int j, int k, double d, double e, double f) {
-        long m = salt(seed, i);
-        m = salt(m, j);
-        m = salt(m, k);
-        m = salt(m, i);
-        m = salt(m, j);
-        m = salt(m, k);
-        double g = fiddle(m);
-        m = salt(m, seed);
-        double h = fiddle(m);
-        m = salt(m, seed);
-        double n = fiddle(m);
-        return square(f + n) + square(e + h) + square(d + g);
+    private @NotNull Cell getCell(int x, int y, int z) {
+        int index = (int) (((x * 0x9E3779B1L) ^ (y * 0x85EBCA77L) ^ (z * 0xC2B2AE3DL)) >>> 7) & CELL_CACHE_MASK;
+        Cell cell = this.cells[index];
+        if (cell == null || cell.cellX != x || cell.cellY != y || cell.cellZ != z) {
+            long m = salt(this.hashedSeed, x);
+            m = salt(m, y);
+            m = salt(m, z);
+            m = salt(m, x);
+            m = salt(m, y);
+            m = salt(m, z);
+            double g = fiddle(m);
+            m = salt(m, this.hashedSeed);
+            double h = fiddle(m);
+            m = salt(m, this.hashedSeed);
+            double n = fiddle(m);
+            this.cells[index] = cell = new Cell(x, y, z, g, h, n);
+        }
+        return cell;
     }
 
     private double fiddle(long l) {
@@ -73,4 +87,7 @@ public class BiomeManager {
     private double square(double n) {
         return n * n;
     }
+
+    private record Cell(int cellX, int cellY, int cellZ, double x, double y, double z) {
+    }
 }
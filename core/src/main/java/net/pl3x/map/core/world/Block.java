@@ -23,7 +23,9 @@
  */
 package net.pl3x.map.core.world;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import net.pl3x.map.core.Keyed;
 import net.pl3x.map.core.configuration.ColorsConfig;
 import org.jetbrains.annotations.NotNull;
@@ -35,6 +37,7 @@ public final class Block extends Keyed {
     private final int vanilla;
     private final byte bools;
     private final BlockState defaultState;
+    private final Map<@NotNull Integer, @NotNull BlockState> states = new ConcurrentHashMap<>();
 
     public Block(int index, @NotNull String id, int vanilla) {
         super(id);
@@ -99,6 +102,26 @@ public final class Block extends Keyed {
         return this.defaultState;
     }
 
+    /**
+     * Get the state of this block with the given properties.
+     * <p>
+     * States are shared by every chunk using them, so things worked out per state
+     * (like {@link BlockState#getBlockColor()}) are only worked out once.
+     *
+     * @param properties block state properties, as in the chunk's palette
+     * @return block state
+     */
+    public @NotNull BlockState getState(@NotNull Map<@NotNull String, @NotNull String> properties) {
+        byte age = BlockState.getProperty(properties, "age");
+        byte moisture = BlockState.getProperty(properties, "moisture");
+        byte power = BlockState.getProperty(properties, "power");
+        if (age == -1 && moisture == -1 && power == -1) {
+            return this.defaultState;
+        }
+        int key = (age & 0xFF) << 16 | (moisture & 0xFF) << 8 | (power & 0xFF);
+        return this.states.computeIfAbsent(key, k -> new BlockState(this, age, moisture, power));
+    }
+
     @Override
     public boolean equals(@Nullable Object o) {
         if (this == o) {
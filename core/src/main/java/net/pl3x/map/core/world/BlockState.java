@@ -24,6 +24,7 @@
 package net.pl3x.map.core.world;
 
 import java.util.Map;
+import net.pl3x.map.core.util.Colors;
 import org.jetbrains.annotations.NotNull;
 
 public class BlockState {
@@ -32,34 +33,29 @@ public class BlockState {
     private final byte moisture;
     private final byte power;
 
+    private volatile Colors.BlockColor blockColor;
+
     public BlockState(@NotNull Block block) {
-        this.block = block;
-        this.age = this.moisture = this.power = -1;
+        this(block, (byte) -1, (byte) -1, (byte) -1);
     }
 
     public BlockState(@NotNull Block block, @NotNull Map<@NotNull String, @NotNull String> properties) {
-        this.block = block;
+        this(block, getProperty(properties, "age"), getProperty(properties, "moisture"), getProperty(properties, "power"));
+    }
 
-        byte age = -1;
-        try {
-            age = Integer.valueOf(properties.get("age")).byteValue();
-        } catch (NumberFormatException ignore) {
-        }
+    public BlockState(@NotNull Block block, byte age, byte moisture, byte power) {
+        this.block = block;
         this.age = age;
-
-        byte moisture = -1;
-        try {
-            moisture = Integer.valueOf(properties.get("moisture")).byteValue();
-        } catch (NumberFormatException ignore) {
-        }
         this.moisture = moisture;
+        this.power = power;
+    }
 
-        byte power = -1;
+    static byte getProperty(@NotNull Map<@NotNull String, @NotNull String> properties, @NotNull String name) {
         try {
-            power = Integer.valueOf(properties.get("power")).byteValue();
+            return Integer.valueOf(properties.get(name)).byteValue();
         } catch (NumberFormatException ignore) {
+            return -1;
         }
-        this.power = power;
     }
 
     public @NotNull Block getBlock() {
@@ -77,4 +73,14 @@ public class BlockState {
     public byte getPower() {
         return this.power;
     }
+
+    public @NotNull Colors.BlockColor getBlockColor() {
+        Colors.BlockColor blockColor = this.blockColor;
+        if (blockColor == null || blockColor.version() != Colors.getBlockColorVersion()) {
+            // compiled lazily, colors are not loaded yet when blocks get registered
+            blockColor = Colors.compileBlockColor(this);
+            this.blockColor = blockColor;
+        }
+        return blockColor;
+    }
 }
@@ -36,6 +36,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class Chunk {
+    // what kind of blocks a section holds, so the surface search can skip whole sections
+    protected static final int AIR = 1;
+    protected static final int FLUID = 1 << 1;
+    protected static final int GLASS = 1 << 2;
+    protected static final int RENDERABLE = 1 << 3;
+    protected static final int ANY = AIR | FLUID | GLASS | RENDERABLE;
+
     private final World world;
     private final Region region;
 
@@ -49,6 +56,9 @@ public abstract class Chunk {
 
     protected boolean populated;
 
+    // palette indices unpacked by the thread populating this whole chunk
+    private volatile SectionIndices populating;
+
     protected Chunk(@NotNull World world, @NotNull Region region) {
         this.world = world;
         this.region = region;
@@ -117,7 +127,52 @@ public abstract class Chunk {
 
     public abstract @NotNull Biome getBiome(int x, int y, int z);
 
-    public @NotNull Chunk populate() {
+    /**
+     * Get the kinds of blocks in the section holding {@code y}, as flags or'ed together.
+     * <p>
+     * Formats that don't keep a palette per section return {@link #ANY}, so nothing is skipped.
+     *
+     * @param y block y
+     * @return section's block flags
+     */
+    protected int getSectionFlags(int y) {
+        return ANY;
+    }
+
+    /**
+     * Get the unpacked palette indices to read blocks from, while the current thread populates this whole chunk.
+     *
+     * @return unpacked palette indices, or null if not populating on this thread
+     */
+    @Nullable SectionIndices getSectionIndices() {
+        SectionIndices indices = this.populating;
+        return indices != null && indices.isCurrentThread() ? indices : null;
+    }
+
+    protected static int getFlags(@NotNull Block block) {
+        int flags = 0;
+        if (block.isAir()) flags |= AIR;
+        if (block.isFluid()) flags |= FLUID;
+        if (block.isGlass()) flags |= GLASS;
+        if (block.color() > 0) flags |= RENDERABLE;
+        return flags;
+    }
+
+    protected static int getFlags(@NotNull BlockState @NotNull [] palette, long @NotNull [] blocks) {
+        if (palette.length == 1) {
+            return getFlags(palette[0].getBlock());
+        }
+        if (palette.length == 0 || blocks.length == 0) {
+            return AIR;
+        }
+        int flags = 0;
+        for (BlockState state : palette) {
+            flags |= getFlags(state.getBlock());
+        }
+        return flags;
+    }
+
+    public synchronized @NotNull Chunk populate() {
         if (this.populated) {
             return this;
         }
@@ -127,62 +182,107 @@ public abstract class Chunk {
         int startX = getX() << 4;
         int startZ = getZ() << 4;
 
-        // iterate each block in this chunk
-        for (int blockZ = startX; blockZ < startX + 16; blockZ++) {
-            for (int blockX = startZ; blockX < startZ + 16; blockX++) {
-                BlockData data = new BlockData();
-                data.blockY = noHeightmap() ? getWorld().getMaxBuildHeight() : getWorldSurfaceY(blockX, blockZ) + 1;
-
-                // if world has ceiling iterate down until we find air
-                if (getWorld().hasCeiling()) {
-                    data.blockY = getWorld().getLogicalHeight();
-                    do {
-                        data.blockY -= 1;
-                        data.blockstate = getBlockState(blockX, data.blockY, blockZ);
-                    } while (data.blockY > getWorld().getMinBuildHeight() && !data.blockstate.getBlock().isAir());
+        // iterate each block in this chunk, skipping columns already scanned on their own
+        SectionIndices indices = SectionIndices.get();
+        this.populating = indices;
+        try {
+            for (int blockZ = startZ; blockZ < startZ + 16; blockZ++) {
+                for (int blockX = startX; blockX < startX + 16; blockX++) {
+                    if (getData(blockX, blockZ) == null) {
+                        populate(blockX, blockZ);
+                    }
                 }
+            }
+        } finally {
+            this.populating = null;
+            indices.clear();
+        }
 
-                // iterate down until we find a renderable block
-                do {
-                    data.blockY -= 1;
-                    data.blockstate = getBlockState(blockX, data.blockY, blockZ);
-                    if (data.blockstate.getBlock().isFluid()) {
-                        if (data.fluidstate == null) {
-                            // get fluid information for the top fluid block
-                            data.fluidY = data.blockY;
-                            data.fluidstate = data.blockstate;
-                            // do not get biome here! causes stackoverflow!
-                            // instead, biome will be lazy loaded on first get
-                            //data.fluidBiome = getWorld().getBiome(blockX, data.fluidY, blockZ);
-                        }
-                        continue;
-                    }
+        this.populated = true;
 
-                    if (getWorld().getConfig().RENDER_TRANSLUCENT_GLASS && data.blockstate.getBlock().isGlass()) {
-                        // translucent glass. store this color and keep iterating
-                        data.glass.addFirst(Colors.setAlpha(0x99, data.blockstate.getBlock().color()));
-                        continue;
-                    }
+        return this;
+    }
 
-                    // test if block is renderable. we ignore blocks with black color
-                    if (data.blockstate.getBlock().color() > 0) {
-                        break;
-                    }
-                } while (data.blockY > getWorld().getMinBuildHeight());
+    /**
+     * Get the data of a single column, scanning only that column if this chunk has not been populated.
+     * <p>
+     * Used for the edges of neighboring regions, which only need a few columns of their border chunks.
+     * Neighbors call this from their own render threads, so it is synchronized with {@link #populate()}.
+     *
+     * @param x block x
+     * @param z block z
+     * @return column's data
+     */
+    public synchronized @Nullable BlockData getColumn(int x, int z) {
+        BlockData data = getData(x, z);
+        if (data == null && !this.populated) {
+            data = populate(x, z);
+        }
+        return data;
+    }
 
-                // determine the biome of final block
-                // do not get biome here! causes stackoverflow!
-                // instead, biome will be lazy loaded on first get
-                //data.blockBiome = getWorld().getBiome(blockX, data.blockY, blockZ);
+    protected @NotNull BlockData populate(int blockX, int blockZ) {
+        BlockData data = new BlockData();
+        data.blockY = noHeightmap() ? getWorld().getMaxBuildHeight() : getWorldSurfaceY(blockX, blockZ) + 1;
 
-                // save data
-                this.data[((blockZ & 0xF) << 4) + (blockX & 0xF)] = data;
-            }
+        int minY = getWorld().getMinBuildHeight();
+
+        // if world has ceiling iterate down until we find air
+        if (getWorld().hasCeiling()) {
+            data.blockY = getWorld().getLogicalHeight();
+            do {
+                data.blockY -= 1;
+                if ((getSectionFlags(data.blockY) & AIR) == 0) {
+                    // no air in this section, go straight to its bottom
+                    data.blockY = Math.max(data.blockY & ~0xF, minY);
+                }
+                data.blockstate = getBlockState(blockX, data.blockY, blockZ);
+            } while (data.blockY > minY && !data.blockstate.getBlock().isAir());
         }
 
-        this.populated = true;
+        // sections without any of these are passed over without changing anything
+        int stopFlags = FLUID | RENDERABLE | (getWorld().getConfig().RENDER_TRANSLUCENT_GLASS ? GLASS : 0);
 
-        return this;
+        // iterate down until we find a renderable block
+        do {
+            data.blockY -= 1;
+            if ((getSectionFlags(data.blockY) & stopFlags) == 0) {
+                // nothing to find in this section, go straight to its bottom
+                data.blockY = Math.max(data.blockY & ~0xF, minY);
+            }
+            data.blockstate = getBlockState(blockX, data.blockY, blockZ);
+            if (data.blockstate.getBlock().isFluid()) {
+                if (data.fluidstate == null) {
+                    // get fluid information for the top fluid block
+                    data.fluidY = data.blockY;
+                    data.fluidstate = data.blockstate;
+                    // do not get biome here! causes stackoverflow!
+                    // instead, biome will be lazy loaded on first get
+                    //data.fluidBiome = getWorld().getBiome(blockX, data.fluidY, blockZ);
+                }
+                continue;
+            }
+
+            if (getWorld().getConfig().RENDER_TRANSLUCENT_GLASS && data.blockstate.getBlock().isGlass()) {
+                // translucent glass. store this color and keep iterating
+                data.glass.addFirst(Colors.setAlpha(0x99, data.blockstate.getBlock().color()));
+                continue;
+            }
+
+            // test if block is renderable. we ignore blocks with black color
+            if (data.blockstate.getBlock().color() > 0) {
+                break;
+            }
+        } while (data.blockY > minY);
+
+        // determine the biome of final block
+        // do not get biome here! causes stackoverflow!
+        // instead, biome will be lazy loaded on first get
+        //data.blockBiome = getWorld().getBiome(blockX, data.blockY, blockZ);
+
+        // save data
+        this.data[((blockZ & 0xF) << 4) + (blockX & 0xF)] = data;
+        return data;
     }
 
     public @NotNull BlockData[] getData() {
@@ -170,7 +170,7 @@ public class ChunkAnvil113 extends Chunk {
                             properties.put(property.getKey().toLowerCase(), ((StringTag) property.getValue()).getValue().toLowerCase());
                         }
                     }
-                    this.palette[i] = new BlockState(block, properties);
+                    this.palette[i] = block.getState(properties);
                 }
             }
 
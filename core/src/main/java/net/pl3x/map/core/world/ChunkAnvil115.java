@@ -173,7 +173,7 @@ public class ChunkAnvil115 extends Chunk {
                             properties.put(property.getKey().toLowerCase(), ((StringTag) property.getValue()).getValue().toLowerCase());
                         }
                     }
-                    this.palette[i] = new BlockState(block, properties);
+                    this.palette[i] = block.getState(properties);
                 }
             }
 
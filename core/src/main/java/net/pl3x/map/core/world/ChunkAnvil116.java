@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.util.MCAMath;
+import net.pl3x.map.core.util.PackedIntArrayAccess;
 import net.querz.nbt.tag.ByteArrayTag;
 import net.querz.nbt.tag.CompoundTag;
 import net.querz.nbt.tag.IntArrayTag;
@@ -48,6 +49,7 @@ public class ChunkAnvil116 extends Chunk {
     private int[] biomes;
 
     protected long[] worldSurfaceHeights = new long[0];
+    private int[] surfaceHeights = new int[0];
 
     private final boolean full;
 
@@ -64,6 +66,9 @@ public class ChunkAnvil116 extends Chunk {
         if (levelData.containsKey("Heightmaps")) {
             CompoundTag heightmaps = levelData.getCompoundTag("Heightmaps");
             this.worldSurfaceHeights = heightmaps.getLongArray("WORLD_SURFACE");
+            if (!noHeightmap()) {
+                this.surfaceHeights = new PackedIntArrayAccess(9, this.worldSurfaceHeights).unpack(new int[256]);
+            }
         }
 
         if (levelData.containsKey("Sections")) {
@@ -110,7 +115,11 @@ public class ChunkAnvil116 extends Chunk {
     public @NotNull BlockState getBlockState(int x, int y, int z) {
         int sectionY = y >> 4;
         Section section = getSection(sectionY);
-        return section == null ? Blocks.AIR.getDefaultState() : section.getBlockState(x, y, z);
+        if (section == null) {
+            return Blocks.AIR.getDefaultState();
+        }
+        SectionIndices indices = getSectionIndices();
+        return indices == null ? section.getBlockState(x, y, z) : section.getBlockState(indices, sectionY - this.sectionMin, x, y, z);
     }
 
     @Override
@@ -149,7 +158,13 @@ public class ChunkAnvil116 extends Chunk {
         if (noHeightmap()) {
             return getWorld().getMinBuildHeight();
         }
-        return (int) MCAMath.getValueFromLongArray(this.worldSurfaceHeights, ((z & 0xF) << 4) + (x & 0xF), 9) + getWorld().getMinBuildHeight();
+        return this.surfaceHeights[((z & 0xF) << 4) + (x & 0xF)] + getWorld().getMinBuildHeight();
+    }
+
+    @Override
+    protected int getSectionFlags(int y) {
+        Section section = getSection(y >> 4);
+        return section == null ? AIR : section.flags;
     }
 
     private @Nullable Section getSection(int y) {
@@ -163,6 +178,8 @@ public class ChunkAnvil116 extends Chunk {
         private long[] blocks;
         private BlockState[] palette = new BlockState[0];
         private final int bitsPerBlock;
+        private final int flags;
+        private final PackedIntArrayAccess blockAccess;
 
         public Section(@NotNull CompoundTag sectionData) {
             this.sectionY = sectionData.getByte("Y");
@@ -190,26 +207,42 @@ public class ChunkAnvil116 extends Chunk {
                             properties.put(property.getKey().toLowerCase(), ((StringTag) property.getValue()).getValue().toLowerCase());
                         }
                     }
-                    this.palette[i] = new BlockState(block, properties);
+                    this.palette[i] = block.getState(properties);
                 }
             }
 
             this.bitsPerBlock = this.blocks.length >> 6;
+            this.flags = getFlags(this.palette, this.blocks);
+            this.blockAccess = this.bitsPerBlock > 0 ? new PackedIntArrayAccess(this.bitsPerBlock, this.blocks) : null;
         }
 
         public @NotNull BlockState getBlockState(int x, int y, int z) {
             if (this.palette.length == 1) {
                 return this.palette[0];
             }
-            if (this.blocks.length == 0) {
+            if (this.blockAccess == null) {
+                return Blocks.AIR.getDefaultState();
+            }
+            int index = ((y & 0xF) << 8) + ((z & 0xF) << 4) + (x & 0xF);
+            return getBlockState(this.blockAccess.get(index));
+        }
+
+        public @NotNull BlockState getBlockState(@NotNull SectionIndices indices, int slot, int x, int y, int z) {
+            if (this.palette.length == 1) {
+                return this.palette[0];
+            }
+            if (this.blockAccess == null) {
                 return Blocks.AIR.getDefaultState();
             }
             int index = ((y & 0xF) << 8) + ((z & 0xF) << 4) + (x & 0xF);
-            long value = MCAMath.getValueFromLongArray(this.blocks, index, this.bitsPerBlock);
+            return getBlockState(indices.get(slot, this, this.blockAccess)[index]);
+        }
+
+        private @NotNull BlockState getBlockState(int value) {
             if (value >= this.palette.length) {
                 return Blocks.AIR.getDefaultState();
             }
-            return this.palette[(int) value];
+            return this.palette[value];
         }
 
         public int getLight(int x, int y, int z) {
@@ -45,6 +45,7 @@ public class ChunkAnvil118 extends Chunk {
     private Section[] sections = new Section[0];
 
     protected long[] worldSurfaceHeights = new long[0];
+    private int[] surfaceHeights = new int[0];
 
     private final boolean full;
 
@@ -59,6 +60,9 @@ public class ChunkAnvil118 extends Chunk {
         if (chunkTag.containsKey("Heightmaps")) {
             CompoundTag heightmaps = chunkTag.getCompoundTag("Heightmaps");
             this.worldSurfaceHeights = heightmaps.getLongArray("WORLD_SURFACE");
+            if (!noHeightmap()) {
+                this.surfaceHeights = heightmap(getWorld().getMaxBuildHeight(), this.worldSurfaceHeights).unpack(new int[256]);
+            }
         }
 
         if (chunkTag.containsKey("sections")) {
@@ -88,7 +92,11 @@ public class ChunkAnvil118 extends Chunk {
     public @NotNull BlockState getBlockState(int x, int y, int z) {
         int sectionY = y >> 4;
         Section section = getSection(sectionY);
-        return section == null ? Blocks.AIR.getDefaultState() : section.getBlockState(x, y, z);
+        if (section == null) {
+            return Blocks.AIR.getDefaultState();
+        }
+        SectionIndices indices = getSectionIndices();
+        return indices == null ? section.getBlockState(x, y, z) : section.getBlockState(indices, sectionY - this.sectionMin, x, y, z);
     }
 
     @Override
@@ -115,7 +123,13 @@ public class ChunkAnvil118 extends Chunk {
         if (noHeightmap()) {
             return getWorld().getMinBuildHeight();
         }
-        return heightmap(getWorld().getMaxBuildHeight(), this.worldSurfaceHeights).get(((z & 0xF) << 4) + (x & 0xF));
+        return this.surfaceHeights[((z & 0xF) << 4) + (x & 0xF)];
+    }
+
+    @Override
+    protected int getSectionFlags(int y) {
+        Section section = getSection(y >> 4);
+        return section == null ? AIR : section.flags;
     }
 
     private @Nullable Section getSection(int y) {
@@ -135,7 +149,10 @@ public class ChunkAnvil118 extends Chunk {
         private BlockState[] blockPalette = new BlockState[0];
         private Biome[] biomePalette = new Biome[0];
         private final int bitsPerBlock;
+        private final int flags;
         private final int bitsPerBiome;
+        private final PackedIntArrayAccess blockAccess;
+        private final PackedIntArrayAccess biomeAccess;
 
         public Section(@NotNull World world, @NotNull CompoundTag sectionData) {
             this.sectionY = sectionData.getByte("Y");
@@ -159,7 +176,7 @@ public class ChunkAnvil118 extends Chunk {
                                 properties.put(property.getKey().toLowerCase(), ((StringTag) property.getValue()).getValue().toLowerCase());
                             }
                         }
-                        this.blockPalette[i] = new BlockState(block, properties);
+                        this.blockPalette[i] = block.getState(properties);
                     }
                 }
             }
@@ -183,22 +200,39 @@ public class ChunkAnvil118 extends Chunk {
                 this.blockLight = Arrays.copyOf(this.blockLight, 2048);
             }
             this.bitsPerBlock = this.blocks.length >> 6;
+            this.flags = getFlags(this.blockPalette, this.blocks);
             this.bitsPerBiome = MCAMath.ceilLog2(this.biomePalette.length);
+            this.blockAccess = this.bitsPerBlock > 0 ? new PackedIntArrayAccess(this.bitsPerBlock, this.blocks) : null;
+            this.biomeAccess = this.bitsPerBiome > 0 ? new PackedIntArrayAccess(this.bitsPerBiome, this.biomes) : null;
         }
 
         public @NotNull BlockState getBlockState(int x, int y, int z) {
             if (this.blockPalette.length == 1) {
                 return this.blockPalette[0];
             }
-            if (this.blocks.length == 0) {
+            if (this.blockAccess == null) {
                 return Blocks.AIR.getDefaultState();
             }
             int blockIndex = ((y & 0xF) << 8) + ((z & 0xF) << 4) + (x & 0xF);
-            long value = MCAMath.getValueFromLongArray(this.blocks, blockIndex, this.bitsPerBlock);
+            return getBlockState(this.blockAccess.get(blockIndex));
+        }
+
+        public @NotNull BlockState getBlockState(@NotNull SectionIndices indices, int slot, int x, int y, int z) {
+            if (this.blockPalette.length == 1) {
+                return this.blockPalette[0];
+            }
+            if (this.blockAccess == null) {
+                return Blocks.AIR.getDefaultState();
+            }
+            int blockIndex = ((y & 0xF) << 8) + ((z & 0xF) << 4) + (x & 0xF);
+            return getBlockState(indices.get(slot, this, this.blockAccess)[blockIndex]);
+        }
+
+        private @NotNull BlockState getBlockState(int value) {
             if (value >= this.blockPalette.length) {
                 return Blocks.AIR.getDefaultState();
             }
-            return this.blockPalette[(int) value];
+            return this.blockPalette[value];
         }
 
         public int getLight(int x, int y, int z) {
@@ -215,15 +249,15 @@ public class ChunkAnvil118 extends Chunk {
             if (this.biomePalette.length == 0) {
                 return Biome.DEFAULT;
             }
-            if (this.biomePalette.length == 1 || this.biomes.length == 0) {
+            if (this.biomeAccess == null || this.biomes.length == 0) {
                 return this.biomePalette[0];
             }
             int biomeIndex = (((y & 0xF) >> 2) << 4) + (((z & 0xF) >> 2) << 2) + ((x & 0xF) >> 2);
-            long value = MCAMath.getValueFromLongArray(this.biomes, biomeIndex, this.bitsPerBiome);
+            int value = this.biomeAccess.get(biomeIndex);
             if (value >= this.biomePalette.length) {
                 return Biome.DEFAULT;
             }
-            return this.biomePalette[(int) value];
+            return this.biomePalette[value];
         }
     }
 }
@@ -28,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 public class EmptyChunk extends Chunk {
     protected EmptyChunk(@NotNull World world, @NotNull Region region) {
         super(world, region);
+        this.populated = true;
     }
 
     @Override
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.world;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import net.pl3x.map.core.renderer.heightmap.Heightmap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Surface heights of a region, with a one block margin on its west and north sides taken
+ * from the neighboring regions.
+ * <p>
+ * Heightmaps only ever compare a block to its west and north neighbors, so with this plane
+ * they can shade a whole region in a single loop over one array, instead of looking up up to
+ * three chunks for every pixel.
+ */
+public class HeightPlane {
+    public static final int SIZE = 512;
+    public static final int STRIDE = SIZE + 1;
+    public static final int NO_HEIGHT = Integer.MIN_VALUE;
+
+    private final Region region;
+    private final int[] heights = new int[STRIDE * STRIDE];
+    private final Map<@NotNull Heightmap, int @NotNull []> shading = new IdentityHashMap<>();
+
+    public HeightPlane(@NotNull Region region) {
+        this.region = region;
+        build();
+    }
+
+    /**
+     * Get the index of a block in {@link #getHeights()}.
+     *
+     * @param x block x relative to the region, from -1 to 511
+     * @param z block z relative to the region, from -1 to 511
+     * @return index into the heights
+     */
+    public static int index(int x, int z) {
+        return (x + 1) + (z + 1) * STRIDE;
+    }
+
+    public @NotNull Region getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Get the raw surface heights, {@link #NO_HEIGHT} where there is no data.
+     * <p>
+     * Rows are {@link #STRIDE} wide, so the west neighbor of index {@code i} is at {@code i - 1}
+     * and the north neighbor at {@code i - STRIDE}.
+     *
+     * @return surface heights
+     */
+    public int @NotNull [] getHeights() {
+        return this.heights;
+    }
+
+    /**
+     * Get the shading of every block in this region for a heightmap, indexed as {@code x + z * 512}.
+     * <p>
+     * Computed once per heightmap, no matter how many renderers use it.
+     *
+     * @param heightmap heightmap
+     * @return heightmap colors
+     */
+    public synchronized int @NotNull [] getShading(@NotNull Heightmap heightmap) {
+        int[] colors = this.shading.get(heightmap);
+        if (colors == null) {
+            colors = new int[SIZE * SIZE];
+            heightmap.shade(this, colors);
+            this.shading.put(heightmap, colors);
+        }
+        return colors;
+    }
+
+    private void build() {
+        Arrays.fill(this.heights, NO_HEIGHT);
+
+        int minX = this.region.getX() << 9;
+        int minZ = this.region.getZ() << 9;
+
+        // this region, a chunk at a time
+        for (int chunkX = 0; chunkX < 32; chunkX++) {
+            for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
+                Chunk chunk = this.region.getChunk((minX >> 4) + chunkX, (minZ >> 4) + chunkZ);
+                for (int x = chunkX << 4; x < (chunkX << 4) + 16; x++) {
+                    for (int z = chunkZ << 4; z < (chunkZ << 4) + 16; z++) {
+                        set(x, z, chunk.getData(x, z));
+                    }
+                }
+            }
+        }
+
+        // west and north margins from the neighbors
+        World world = this.region.getWorld();
+        for (int z = -1; z < SIZE; z++) {
+            set(-1, z, world.getMarginData(this.region, minX - 1, minZ + z));
+        }
+        for (int x = 0; x < SIZE; x++) {
+            set(x, -1, world.getMarginData(this.region, minX + x, minZ - 1));
+        }
+    }
+
+    private void set(int x, int z, Chunk.@Nullable BlockData data) {
+        if (data != null) {
+            this.heights[index(x, z)] = data.getBlockY();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import net.pl3x.map.core.Pl3xMap;
 import net.querz.mca.CompressionType;
 import net.querz.nbt.io.NBTInputStream;
@@ -48,7 +49,11 @@ public class Region {
     private final int regionZ;
     private final File regionFile;
 
-    private final Chunk[] chunks = new Chunk[32 << 5];
+    // swapped out as a whole when the region file changes, so neighbors reading an edge never see a mix
+    private volatile AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(32 << 5);
+
+    private HeightPlane heightPlane;
+    private long lastModified;
 
     private final int hash;
 
@@ -82,42 +87,125 @@ public class Region {
     }
 
     public @NotNull Chunk getChunk(int chunkX, int chunkZ) {
+        return readChunk(chunkX, chunkZ).populate();
+    }
+
+    /**
+     * Get a chunk without populating it, for reading a few columns or biomes across the edge of a neighbor.
+     * <p>
+     * The chunk is kept, so if this region gets rendered later it does not need to be read again.
+     *
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return chunk
+     */
+    public @NotNull Chunk readChunk(int chunkX, int chunkZ) {
+        AtomicReferenceArray<Chunk> chunks = this.chunks;
         int index = getChunkIndex(chunkX, chunkZ);
-        Chunk chunk = this.chunks[index];
+        Chunk chunk = chunks.get(index);
         if (chunk == null) {
             try (RandomAccessFile raf = new RandomAccessFile(getRegionFile(), "r")) {
-                chunk = loadChunk(raf, index);
+                noteModified();
+                chunk = readChunk(raf, index);
             } catch (EOFException | FileNotFoundException ignore) {
             } catch (IOException e) {
                 e.printStackTrace();
             }
-            if (chunk == null) {
-                return this.chunks[index] = new EmptyChunk(getWorld(), this);
-            }
+            chunk = keep(chunks, index, chunk == null ? new EmptyChunk(getWorld(), this) : chunk);
         }
         return chunk;
     }
 
+    /**
+     * Get the surface heights of this region, built on first use.
+     *
+     * @return region's height plane
+     */
+    public synchronized @NotNull HeightPlane getHeightPlane() {
+        if (this.heightPlane == null) {
+            this.heightPlane = new HeightPlane(this);
+        }
+        return this.heightPlane;
+    }
+
+    /**
+     * Drop the height plane, so a cached region does not hold on to it after rendering.
+     */
+    public synchronized void clearHeightPlane() {
+        this.heightPlane = null;
+    }
+
     public void loadChunks() throws IOException {
         if (!getRegionFile().exists() || getRegionFile().length() <= 0) {
             return;
         }
         try (RandomAccessFile raf = new RandomAccessFile(getRegionFile(), "r")) {
-            for (int index = 0; index < this.chunks.length; index++) {
+            AtomicReferenceArray<Chunk> chunks = checkModified();
+            for (int index = 0; index < chunks.length(); index++) {
                 Pl3xMap.api().getRegionProcessor().checkPaused();
-                loadChunk(raf, index);
+                Chunk chunk = chunks.get(index);
+                if (chunk == null) {
+                    chunk = keep(chunks, index, readChunk(raf, index));
+                }
+                // may have been read for a neighbor's edge already
+                chunk.populate();
             }
         } catch (EOFException ignore) {
         }
     }
 
     public @NotNull Chunk loadChunk(@NotNull RandomAccessFile raf, int index) throws IOException {
+        return keep(this.chunks, index, readChunk(raf, index)).populate();
+    }
+
+    /**
+     * Start over with fresh chunks if the region file changed since they were read.
+     * <p>
+     * Only called when rendering this region. Chunks are swapped out instead of cleared, so neighbors
+     * reading this region's edge at the same time carry on with the chunks they already have.
+     *
+     * @return chunks to render
+     */
+    private synchronized @NotNull AtomicReferenceArray<Chunk> checkModified() {
+        long modified = getRegionFile().lastModified();
+        if (modified != this.lastModified) {
+            if (this.lastModified != 0) {
+                this.chunks = new AtomicReferenceArray<>(32 << 5);
+                this.heightPlane = null;
+            }
+            this.lastModified = modified;
+        }
+        return this.chunks;
+    }
+
+    /**
+     * Remember when the region file was first read, so a later render can tell whether it changed since.
+     */
+    private synchronized void noteModified() {
+        if (this.lastModified == 0) {
+            this.lastModified = getRegionFile().lastModified();
+        }
+    }
+
+    /**
+     * Keep a chunk that was just read, unless another thread got there first.
+     *
+     * @param chunks chunks the chunk was read for
+     * @param index  chunk index
+     * @param chunk  chunk that was read
+     * @return the kept chunk
+     */
+    private @NotNull Chunk keep(@NotNull AtomicReferenceArray<Chunk> chunks, int index, @NotNull Chunk chunk) {
+        return chunks.compareAndSet(index, null, chunk) ? chunk : chunks.get(index);
+    }
+
+    private @NotNull Chunk readChunk(@NotNull RandomAccessFile raf, int index) throws IOException {
         raf.seek(index * 4L);
         int offset = raf.read() << 16;
         offset |= (raf.read() & 0xFF) << 8;
         offset |= raf.read() & 0xFF;
         if (raf.readByte() == 0) {
-            return this.chunks[index] = new EmptyChunk(getWorld(), this);
+            return new EmptyChunk(getWorld(), this);
         }
         raf.seek(4096L * offset + 4); // +4 skip chunk size
 
@@ -130,7 +218,7 @@ public class Region {
         DataInputStream dis = new DataInputStream(new BufferedInputStream(compressionType.decompress(new FileInputStream(raf.getFD()))));
         NamedTag tag = new NBTInputStream(dis).readTag(Tag.DEFAULT_MAX_DEPTH);
         if (tag != null && tag.getTag() instanceof CompoundTag compoundTag) {
-            return this.chunks[index] = Chunk.create(getWorld(), this, compoundTag, index).populate();
+            return Chunk.create(getWorld(), this, compoundTag, index);
         } else {
             throw new IOException("Invalid data tag: " + (tag == null ? "null" : tag.getName()));
         }
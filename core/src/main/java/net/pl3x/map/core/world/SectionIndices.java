@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.world;
+
+import java.util.Arrays;
+import net.pl3x.map.core.util.PackedIntArrayAccess;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Block palette indices of a chunk's sections, unpacked a whole section at a time.
+ * <p>
+ * Populating a chunk reads many blocks from the same few sections, so each of those is unpacked
+ * once in a single pass instead of decoding every block on its own. The buffers belong to one
+ * thread and are reused for every chunk it populates.
+ */
+final class SectionIndices {
+    private static final ThreadLocal<SectionIndices> BUFFERS = ThreadLocal.withInitial(SectionIndices::new);
+
+    private final Thread thread = Thread.currentThread();
+
+    private Object[] owners = new Object[0];
+    private int[][] indices = new int[0][];
+
+    private SectionIndices() {
+    }
+
+    /**
+     * Get the current thread's buffers.
+     *
+     * @return current thread's buffers
+     */
+    static @NotNull SectionIndices get() {
+        return BUFFERS.get();
+    }
+
+    /**
+     * Check if these buffers belong to the current thread.
+     *
+     * @return true if owned by the current thread
+     */
+    boolean isCurrentThread() {
+        return this.thread == Thread.currentThread();
+    }
+
+    /**
+     * Get the unpacked palette indices of a section, unpacking them on first use.
+     *
+     * @param slot    section's index within its chunk
+     * @param section section the indices belong to
+     * @param access  section's packed block states
+     * @return the section's 4096 palette indices
+     */
+    int @NotNull [] get(int slot, @NotNull Object section, @NotNull PackedIntArrayAccess access) {
+        if (slot >= this.owners.length) {
+            this.owners = Arrays.copyOf(this.owners, slot + 1);
+            this.indices = Arrays.copyOf(this.indices, slot + 1);
+        }
+        int[] indices = this.indices[slot];
+        if (this.owners[slot] != section) {
+            if (indices == null) {
+                indices = this.indices[slot] = new int[4096];
+            }
+            access.unpack(indices);
+            this.owners[slot] = section;
+        }
+        return indices;
+    }
+
+    /**
+     * Let go of the sections, so a finished chunk is not held on to.
+     */
+    void clear() {
+        Arrays.fill(this.owners, null);
+    }
+}
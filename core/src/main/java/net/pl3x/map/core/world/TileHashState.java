@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.world;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sidecar index of the last saved pixel hash of each region, per renderer.
+ * <p>
+ * Used to skip re-encoding and rewriting tiles when a re-render produced identical pixels.
+ */
+public class TileHashState {
+    private final Map<@NotNull String, @NotNull Map<@NotNull Long, @NotNull Long>> tileHashes = new ConcurrentHashMap<>(); // <renderer, <pos, hash>>
+    private final File file;
+
+    public TileHashState(@NotNull World world) {
+        this.file = world.getTilesDirectory().resolve(".ths").toFile();
+
+        if (this.file.exists()) {
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(this.file)))) {
+                int renderers = in.readInt();
+                for (int i = 0; i < renderers; i++) {
+                    Map<Long, Long> hashes = getHashes(in.readUTF());
+                    int size = in.readInt();
+                    for (int j = 0; j < size; j++) {
+                        hashes.put(in.readLong(), in.readLong());
+                    }
+                }
+            } catch (Throwable ignore) {
+            }
+        }
+    }
+
+    public void set(@NotNull String renderer, long regionPos, long hash) {
+        getHashes(renderer).put(regionPos, hash);
+    }
+
+    public @Nullable Long get(@NotNull String renderer, long regionPos) {
+        Map<Long, Long> hashes = this.tileHashes.get(renderer);
+        return hashes == null ? null : hashes.get(regionPos);
+    }
+
+    public void save() {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(this.file)))) {
+            // snapshot so the sizes we write match the entries we write
+            Map<String, Map<Long, Long>> renderers = Map.copyOf(this.tileHashes);
+            out.writeInt(renderers.size());
+            for (Map.Entry<String, Map<Long, Long>> renderer : renderers.entrySet()) {
+                Map<Long, Long> hashes = Map.copyOf(renderer.getValue());
+                out.writeUTF(renderer.getKey());
+                out.writeInt(hashes.size());
+                for (Map.Entry<Long, Long> entry : hashes.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            out.flush();
+        } catch (Throwable ignore) {
+        }
+    }
+
+    private @NotNull Map<@NotNull Long, @NotNull Long> getHashes(@NotNull String renderer) {
+        return this.tileHashes.computeIfAbsent(renderer, k -> new ConcurrentHashMap<>());
+    }
+}
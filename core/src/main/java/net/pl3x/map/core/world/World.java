@@ -41,11 +41,14 @@ import java.util.stream.Stream;
 import javax.imageio.ImageIO;
 import net.pl3x.map.core.Keyed;
 import net.pl3x.map.core.Pl3xMap;
+import net.pl3x.map.core.configuration.Config;
 import net.pl3x.map.core.configuration.PlayersLayerConfig;
 import net.pl3x.map.core.configuration.SpawnLayerConfig;
 import net.pl3x.map.core.configuration.WorldBorderLayerConfig;
 import net.pl3x.map.core.configuration.WorldConfig;
+import net.pl3x.map.core.httpd.RenderOnView;
 import net.pl3x.map.core.image.IconImage;
+import net.pl3x.map.core.image.TileManifest;
 import net.pl3x.map.core.log.Logger;
 import net.pl3x.map.core.markers.Point;
 import net.pl3x.map.core.markers.area.Area;
@@ -59,6 +62,7 @@ import net.pl3x.map.core.registry.BiomeRegistry;
 import net.pl3x.map.core.registry.Registry;
 import net.pl3x.map.core.renderer.Renderer;
 import net.pl3x.map.core.renderer.task.UpdateMarkerData;
+import net.pl3x.map.core.renderer.task.UpdateTileManifest;
 import net.pl3x.map.core.util.FileUtil;
 import net.pl3x.map.core.util.Mathf;
 import org.jetbrains.annotations.NotNull;
@@ -85,8 +89,11 @@ public abstract class World extends Keyed {
 
     private final LoadingCache<@NotNull Long, @NotNull Region> regionCache;
     private final RegionModifiedState regionModifiedState;
+    private final TileHashState tileHashState;
+    private final TileManifest tileManifest;
     //private final RegionFileWatcher regionFileWatcher;
     private final UpdateMarkerData markerTask;
+    private final UpdateTileManifest tileManifestTask;
     private final Map<@NotNull String, Renderer.@NotNull Builder> renderers = new LinkedHashMap<>();
 
     public World(@NotNull String name, long seed, @NotNull Point spawn, @NotNull Type type, @NotNull Path regionDirectory) {
@@ -120,8 +127,11 @@ public abstract class World extends Keyed {
                 .build(this::loadRegion);
 
         this.regionModifiedState = new RegionModifiedState(this);
+        this.tileHashState = new TileHashState(this);
+        this.tileManifest = new TileManifest(this);
         //this.regionFileWatcher = new RegionFileWatcher(this);
         this.markerTask = new UpdateMarkerData(this);
+        this.tileManifestTask = new UpdateTileManifest(this);
     }
 
     protected void init() {
@@ -165,11 +175,19 @@ public abstract class World extends Keyed {
         }
 
         Logger.debug("Checking all region files");
-        Pl3xMap.api().getRegionProcessor().addRegions(this, listRegions(false));
+        Collection<Point> regions = listRegions(false);
+        if (RenderOnView.isEnabled()) {
+            // only keep rendered regions up to date, the rest render when someone looks at them
+            regions.removeIf(region -> getRegionModifiedState().get(Mathf.asLong(region)) < 0);
+        }
+        Pl3xMap.api().getRegionProcessor().addRegions(this, regions);
 
         Logger.debug("Starting marker task");
         Pl3xMap.api().getScheduler().addTask(1, true, this.markerTask);
 
+        Logger.debug("Starting tile manifest task");
+        Pl3xMap.api().getScheduler().addTask(this.tileManifestTask);
+
         // load up custom markers
         Logger.debug("Loading custom markers for " + getName());
         for (Path file : getCustomMarkerFiles()) {
@@ -180,6 +198,8 @@ public abstract class World extends Keyed {
     public void cleanup() {
         this.regionCache.invalidateAll();
         getRegionModifiedState().save();
+        getTileHashState().save();
+        getTileManifest().flush();
     }
 
     public @NotNull Path getCustomMarkersDirectory() {
@@ -206,6 +226,14 @@ public abstract class World extends Keyed {
         return this.regionModifiedState;
     }
 
+    public @NotNull TileHashState getTileHashState() {
+        return this.tileHashState;
+    }
+
+    public @NotNull TileManifest getTileManifest() {
+        return this.tileManifest;
+    }
+
     //public @NotNull RegionFileWatcher getRegionFileWatcher() {
     //    return this.regionFileWatcher;
     //}
@@ -214,6 +242,10 @@ public abstract class World extends Keyed {
         return this.markerTask;
     }
 
+    public @NotNull UpdateTileManifest getTileManifestTask() {
+        return this.tileManifestTask;
+    }
+
     public @NotNull Map<@NotNull String, Renderer.@NotNull Builder> getRenderers() {
         return Collections.unmodifiableMap(this.renderers);
     }
@@ -317,6 +349,34 @@ public abstract class World extends Keyed {
         return getRegion(region, chunkX >> 5, chunkZ >> 5).getChunk(chunkX, chunkZ);
     }
 
+    /**
+     * Get a chunk without populating it.
+     *
+     * @param region region being rendered, if any
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return chunk
+     * @see Region#readChunk(int, int)
+     */
+    public @NotNull Chunk readChunk(@Nullable Region region, int chunkX, int chunkZ) {
+        return getRegion(region, chunkX >> 5, chunkZ >> 5).readChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * Get the surface data of a block on or across the edge of a region.
+     * <p>
+     * Blocks in neighboring regions only read their chunk and scan their own column, so rendering
+     * a region does not parse and populate the neighbors just to look at a few blocks past its border.
+     *
+     * @param region region being rendered
+     * @param blockX block x
+     * @param blockZ block z
+     * @return block's surface data
+     */
+    public Chunk.@Nullable BlockData getMarginData(@NotNull Region region, int blockX, int blockZ) {
+        return readChunk(region, blockX >> 4, blockZ >> 4).getColumn(blockX, blockZ);
+    }
+
     public @NotNull Region getRegion(@Nullable Region region, int regionX, int regionZ) {
         if (region != null && region.getX() == regionX && region.getZ() == regionZ) {
             return region;
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.httpd;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileChangeFeedTest {
+    private static void add(TileChangeFeed feed, String world, int count) {
+        for (int i = 1; i <= count; i++) {
+            feed.add(world, "basic", 0, i, -i, i);
+        }
+    }
+
+    @Test
+    void collectsChangesAfterSince() {
+        TileChangeFeed feed = new TileChangeFeed();
+        add(feed, "world", 3);
+        assertEquals(List.of(
+                List.of("basic", 0, 1, -1, 1L),
+                List.of("basic", 0, 2, -2, 2L),
+                List.of("basic", 0, 3, -3, 3L)
+        ), feed.collect("world", 0));
+        assertEquals(List.of(List.of("basic", 0, 3, -3, 3L)), feed.collect("world", 2));
+        assertTrue(feed.collect("world", 3).isEmpty());
+    }
+
+    @Test
+    void collectsOnlyTheRequestedWorld() {
+        TileChangeFeed feed = new TileChangeFeed();
+        feed.add("world", "basic", 0, 1, 1, 1);
+        feed.add("world_nether", "basic", 0, 2, 2, 2);
+        feed.add("world", "basic", 0, 3, 3, 3);
+        assertEquals(List.of(
+                List.of("basic", 0, 1, 1, 1L),
+                List.of("basic", 0, 3, 3, 3L)
+        ), feed.collect("world", 0));
+        assertEquals(List.of(List.of("basic", 0, 2, 2, 2L)), feed.collect("world_nether", 0));
+    }
+
+    @Test
+    void resetsOnlyKnownPolls() {
+        TileChangeFeed feed = new TileChangeFeed();
+        add(feed, "world", 3);
+        String epoch = feed.getEpoch();
+        // first poll, nothing to reset
+        assertFalse(feed.isReset(-1, null));
+        assertFalse(feed.isReset(0, epoch));
+        assertFalse(feed.isReset(3, epoch));
+        // from the future
+        assertTrue(feed.isReset(4, epoch));
+    }
+
+    @Test
+    void resetsAcrossServerStarts() {
+        TileChangeFeed feed = new TileChangeFeed();
+        TileChangeFeed restarted = new TileChangeFeed();
+        add(feed, "world", 3);
+        add(restarted, "world", 3);
+        assertNotEquals(feed.getEpoch(), restarted.getEpoch());
+        assertTrue(restarted.isReset(2, feed.getEpoch()));
+        assertTrue(restarted.isReset(2, null));
+        assertFalse(restarted.isReset(2, restarted.getEpoch()));
+    }
+
+    @Test
+    void wrapsAroundTheRing() {
+        TileChangeFeed feed = new TileChangeFeed();
+        int extra = 10;
+        add(feed, "world", TileChangeFeed.CAPACITY + extra);
+        String epoch = feed.getEpoch();
+
+        // overwritten by newer changes
+        assertTrue(feed.isReset(extra - 1, epoch));
+        // oldest change still in the log is right after this one
+        assertFalse(feed.isReset(extra, epoch));
+
+        List<Object> changes = feed.collect("world", extra);
+        assertEquals(TileChangeFeed.CAPACITY, changes.size());
+        assertEquals(List.of("basic", 0, extra + 1, -(extra + 1), extra + 1L), changes.get(0));
+        int last = TileChangeFeed.CAPACITY + extra;
+        assertEquals(List.of("basic", 0, last, -last, (long) last), changes.get(changes.size() - 1));
+
+        assertEquals(List.of(List.of("basic", 0, last, -last, (long) last)), feed.collect("world", last - 1));
+    }
+}
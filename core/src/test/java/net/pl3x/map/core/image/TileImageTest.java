@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.image;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class TileImageTest {
+    private static int[] pixels() {
+        int[] pixels = new int[512 << 9];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | ((i * 0x9E3779B1) >>> 8);
+        }
+        return pixels;
+    }
+
+    @Test
+    void samePixelsHashTheSame() {
+        assertEquals(TileImage.hashPixels(pixels()), TileImage.hashPixels(pixels()));
+    }
+
+    @Test
+    void changedPixelChangesHash() {
+        long hash = TileImage.hashPixels(pixels());
+        for (int index : new int[]{0, 12345, (512 << 9) - 1}) {
+            int[] pixels = pixels();
+            pixels[index] ^= 1;
+            assertNotEquals(hash, TileImage.hashPixels(pixels), "pixel " + index);
+        }
+    }
+
+    @Test
+    void movedPixelsChangeHash() {
+        int[] pixels = pixels();
+        long hash = TileImage.hashPixels(pixels);
+        int first = pixels[0];
+        pixels[0] = pixels[1];
+        pixels[1] = first;
+        assertNotEquals(hash, TileImage.hashPixels(pixels));
+    }
+
+    @Test
+    void alphaChangesHash() {
+        int[] transparent = new int[512 << 9];
+        int[] black = new int[512 << 9];
+        black[100] = 0xFF000000;
+        assertNotEquals(TileImage.hashPixels(transparent), TileImage.hashPixels(black));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.image;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileManifestTest {
+    @Test
+    void followsTheClock() {
+        AtomicLong last = new AtomicLong();
+        assertEquals(1000, TileManifest.nextVersion(last, 1000));
+        assertEquals(5000, TileManifest.nextVersion(last, 5000));
+    }
+
+    @Test
+    void increasesWithinTheSameMillisecond() {
+        AtomicLong last = new AtomicLong();
+        assertEquals(1000, TileManifest.nextVersion(last, 1000));
+        assertEquals(1001, TileManifest.nextVersion(last, 1000));
+        assertEquals(1002, TileManifest.nextVersion(last, 1000));
+    }
+
+    @Test
+    void increasesWhenTheClockGoesBack() {
+        AtomicLong last = new AtomicLong();
+        assertEquals(1000, TileManifest.nextVersion(last, 1000));
+        assertEquals(1001, TileManifest.nextVersion(last, 500));
+        assertEquals(1002, TileManifest.nextVersion(last, 999));
+        assertEquals(2000, TileManifest.nextVersion(last, 2000));
+    }
+
+    @Test
+    void neverRepeatsAcrossThreads() throws Exception {
+        AtomicLong last = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] versions = new long[10000];
+                    for (int i = 0; i < versions.length; i++) {
+                        versions[i] = TileManifest.nextVersion(last, 1000);
+                        assertTrue(i == 0 || versions[i] > versions[i - 1]);
+                    }
+                    return versions;
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long version : future.get()) {
+                    assertTrue(seen.add(version), "repeated version " + version);
+                }
+            }
+            assertEquals(40000, seen.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
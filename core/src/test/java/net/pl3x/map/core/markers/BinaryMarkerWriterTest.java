@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.markers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.pl3x.map.core.markers.marker.Marker;
+import net.pl3x.map.core.markers.option.Options;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encodes markers and decodes them the way the webmap's {@code BinaryMarkerReader.ts} does,
+ * which must give back what the json marker files hold.
+ */
+class BinaryMarkerWriterTest {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    private static @NotNull List<@NotNull Marker<?>> markers() {
+        Options shared = Options.builder()
+                .strokeColor(0xFF3388FF)
+                .strokeWeight(3)
+                .fillColor(0x333388FF)
+                .tooltipContent("<b>Spawn</b> – ünïcödé")
+                .tooltipOpacity(0.75)
+                .build();
+
+        List<Point> zigzag = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            zigzag.add(Point.of(i * 16, (i % 2 == 0 ? 0 : 3) + (i % 7 == 0 ? 40 : 0)));
+        }
+        // flat stretch, dropped from the line entirely
+        for (int i = 40; i < 50; i++) {
+            zigzag.add(Point.of(i * 16, 0));
+        }
+
+        List<Marker<?>> markers = new ArrayList<>();
+        markers.add(Marker.circle("circle", 10.5, -20, 5.25).setOptions(shared));
+        markers.add(Marker.polyline("long", zigzag).setOptions(shared));
+        markers.add(Marker.polygon("short", Marker.polyline("outline", Point.of(-30000000, 30000000), Point.of(0, 0), Point.of(29999999, -29999999))));
+        markers.add(Marker.rectangle("rect", -5, -5, 5, 5).setOptions(Options.builder().popupContent("popup").build()));
+        return markers;
+    }
+
+    private static @NotNull Map<@NotNull Options, @NotNull Integer> styles(@NotNull List<@NotNull Marker<?>> markers) {
+        Map<Options, Integer> styles = new LinkedHashMap<>();
+        for (Marker<?> marker : markers) {
+            if (marker.getOptions() != null) {
+                styles.putIfAbsent(marker.getOptions(), styles.size());
+            }
+        }
+        return styles;
+    }
+
+    private static @NotNull JsonElement json(@NotNull JsonSerializable value) throws IOException {
+        StringWriter writer = new StringWriter();
+        value.writeJson(new JsonWriterWrapper(GSON.newJsonWriter(writer)));
+        return JsonParser.parseString(writer.toString());
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        List<Marker<?>> markers = markers();
+        Map<Options, Integer> styles = styles(markers);
+        assertEquals(2, styles.size());
+
+        JsonArray decoded = new Reader(BinaryMarkerWriter.encode(styles, markers)).read();
+
+        assertEquals(markers.size(), decoded.size());
+        for (int i = 0; i < markers.size(); i++) {
+            Marker<?> marker = markers.get(i);
+            JsonObject obj = decoded.get(i).getAsJsonObject();
+            assertEquals(marker.getType(), obj.get("type").getAsString());
+            assertEquals(json(marker), obj.get("data"), marker.getKey());
+            Options options = marker.getOptions();
+            assertEquals(options == null ? JsonNull.INSTANCE : json(options), obj.get("options"), marker.getKey());
+        }
+
+        // the long line was simplified, and its zoom levels came through as plain integers
+        JsonObject line = decoded.get(1).getAsJsonObject().getAsJsonObject("data");
+        assertTrue(line.getAsJsonArray("points").size() < 50);
+        assertEquals(line.getAsJsonArray("points").size(), line.getAsJsonArray("zooms").size());
+    }
+
+    @Test
+    void emptyLayer() throws IOException {
+        assertEquals(new JsonArray(), new Reader(BinaryMarkerWriter.encode(Map.of(), List.of())).read());
+    }
+
+    /**
+     * Same decoding as {@code BinaryMarkerReader.ts}.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final List<@NotNull String> strings = new ArrayList<>();
+
+        private Reader(byte @NotNull [] bytes) {
+            this.buffer = ByteBuffer.wrap(bytes);
+        }
+
+        private @NotNull JsonArray read() {
+            byte[] magic = new byte[3];
+            this.buffer.get(magic);
+            assertEquals("PMB", new String(magic, StandardCharsets.US_ASCII));
+            assertEquals(BinaryMarkerWriter.VERSION, this.buffer.get());
+
+            long stringCount = readVarInt();
+            for (int i = 0; i < stringCount; i++) {
+                byte[] utf8 = new byte[(int) readVarInt()];
+                this.buffer.get(utf8);
+                this.strings.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+
+            // markers sharing options share the same object
+            List<JsonElement> options = new ArrayList<>();
+            long optionCount = readVarInt();
+            for (int i = 0; i < optionCount; i++) {
+                options.add(readValue());
+            }
+
+            JsonArray markers = new JsonArray();
+            long markerCount = readVarInt();
+            for (int i = 0; i < markerCount; i++) {
+                JsonObject marker = new JsonObject();
+                marker.addProperty("type", string());
+                marker.add("data", readValue());
+                int index = (int) readVarInt();
+                marker.add("options", index > 0 ? options.get(index - 1) : JsonNull.INSTANCE);
+                markers.add(marker);
+            }
+            assertEquals(0, this.buffer.remaining());
+            return markers;
+        }
+
+        private @NotNull JsonElement readValue() {
+            int tag = this.buffer.get();
+            switch (tag) {
+                case 0: // NULL
+                    return JsonNull.INSTANCE;
+                case 1: // FALSE
+                    return new JsonPrimitive(false);
+                case 2: // TRUE
+                    return new JsonPrimitive(true);
+                case 3: // INT
+                    return new JsonPrimitive(readSignedVarInt());
+                case 4: // DOUBLE
+                    return new JsonPrimitive(this.buffer.getDouble());
+                case 5: // STRING
+                    return new JsonPrimitive(string());
+                case 6: { // ARRAY
+                    JsonArray array = new JsonArray();
+                    long size = readVarInt();
+                    for (int i = 0; i < size; i++) {
+                        array.add(readValue());
+                    }
+                    return array;
+                }
+                case 7: { // OBJECT
+                    JsonObject obj = new JsonObject();
+                    long size = readVarInt();
+                    for (int i = 0; i < size; i++) {
+                        String key = string();
+                        obj.add(key, readValue());
+                    }
+                    return obj;
+                }
+                case 8: { // POINTS
+                    JsonArray points = new JsonArray();
+                    long size = readVarInt();
+                    long x = 0, z = 0;
+                    for (int i = 0; i < size; i++) {
+                        x += readSignedVarInt();
+                        z += readSignedVarInt();
+                        JsonObject point = new JsonObject();
+                        point.addProperty("x", x);
+                        point.addProperty("z", z);
+                        points.add(point);
+                    }
+                    return points;
+                }
+                case 9: { // INTS
+                    JsonArray ints = new JsonArray();
+                    long size = readVarInt();
+                    long last = 0;
+                    for (int i = 0; i < size; i++) {
+                        last += readSignedVarInt();
+                        ints.add(last);
+                    }
+                    return ints;
+                }
+                default:
+                    throw new IllegalStateException("Unknown marker value tag " + tag + " at " + (this.buffer.position() - 1));
+            }
+        }
+
+        private @NotNull String string() {
+            return this.strings.get((int) readVarInt());
+        }
+
+        private long readVarInt() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = this.buffer.get() & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private long readSignedVarInt() {
+            long value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
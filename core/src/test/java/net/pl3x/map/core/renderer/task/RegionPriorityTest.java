@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+import net.pl3x.map.core.markers.Point;
+import net.pl3x.map.core.util.Mathf;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegionPriorityTest {
+    @Test
+    void ringsAroundSpawn() {
+        // spawn is in blocks, priorities are in regions
+        ToLongFunction<Point> priorities = RegionPriority.getPriorities(Point.of(1000, -1), List.of());
+        assertEquals(0, priorities.applyAsLong(Point.of(1, -1)));
+        assertEquals(1, priorities.applyAsLong(Point.of(0, 0)));
+        assertEquals(3, priorities.applyAsLong(Point.of(4, -3)));
+        assertEquals(3, priorities.applyAsLong(Point.of(-2, -1)));
+        assertEquals(1001, priorities.applyAsLong(Point.of(-500, 1000)));
+    }
+
+    @Test
+    void nearestPointWins() {
+        List<Long> areas = List.of(Mathf.asLong(100, 100), Mathf.asLong(-50, 20));
+        ToLongFunction<Point> priorities = RegionPriority.getPriorities(Point.of(0, 0), areas);
+        assertEquals(0, priorities.applyAsLong(Point.of(100, 100)));
+        assertEquals(3, priorities.applyAsLong(Point.of(98, 97)));
+        assertEquals(2, priorities.applyAsLong(Point.of(-48, 22)));
+        assertEquals(5, priorities.applyAsLong(Point.of(5, -5)));
+        // right between spawn and an area, in different grid cells
+        assertEquals(25, priorities.applyAsLong(Point.of(-25, 10)));
+    }
+
+    @Test
+    void matchesCheckingEveryPoint() {
+        Random random = new Random(42);
+        Point spawn = Point.of(random.nextInt(20000) - 10000, random.nextInt(20000) - 10000);
+        List<Point> points = new ArrayList<>();
+        points.add(Point.of(spawn.x() >> 9, spawn.z() >> 9));
+        List<Long> areas = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(400) - 200;
+            int z = random.nextInt(400) - 200;
+            points.add(Point.of(x, z));
+            areas.add(Mathf.asLong(x, z));
+        }
+
+        ToLongFunction<Point> priorities = RegionPriority.getPriorities(spawn, areas);
+        for (int i = 0; i < 5000; i++) {
+            Point region = Point.of(random.nextInt(600) - 300, random.nextInt(600) - 300);
+            long expected = Long.MAX_VALUE;
+            for (Point point : points) {
+                expected = Math.min(expected, Math.max(Math.abs(region.x() - point.x()), Math.abs(region.z() - point.z())));
+            }
+            assertEquals(expected, priorities.applyAsLong(region), region.toString());
+        }
+    }
+}
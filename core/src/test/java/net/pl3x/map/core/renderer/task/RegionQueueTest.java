@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.renderer.task;
+
+import net.pl3x.map.core.markers.Point;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionQueueTest {
+    private static final Point A = Point.of(0, 0);
+    private static final Point B = Point.of(-3, 7);
+    private static final Point C = Point.of(1000, -1000);
+
+    @Test
+    void pollsLowestPriorityFirst() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        queue.add(B, 1);
+        queue.add(C, 3);
+        assertEquals(3, queue.size());
+        assertEquals(B, queue.poll());
+        assertEquals(C, queue.poll());
+        assertEquals(A, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void addingAgainOnlyMovesForward() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        queue.add(B, 3);
+        queue.add(A, 5);
+        assertEquals(2, queue.size());
+
+        queue.add(A, 1);
+        assertEquals(2, queue.size());
+        queue.add(A, 9);
+        assertEquals(2, queue.size());
+
+        assertEquals(A, queue.poll());
+        assertEquals(B, queue.poll());
+        // the entry left behind by moving A forward is skipped
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void queuesOneFollowUpWhileRendering() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        assertEquals(A, queue.poll());
+
+        queue.add(A, 7);
+        queue.add(A, 4);
+        queue.add(A, 6);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        queue.add(B, 5);
+        queue.done(A);
+        assertEquals(2, queue.size());
+        // follow-up keeps the best priority it was added with
+        assertEquals(A, queue.poll());
+        assertEquals(B, queue.poll());
+
+        queue.done(A);
+        queue.done(B);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void doneWithoutFollowUpQueuesNothing() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        assertEquals(A, queue.poll());
+        queue.done(A);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void requestSkipsRegionsBeingRendered() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        assertEquals(A, queue.poll());
+
+        queue.request(A, RegionPriority.VIEWED);
+        queue.done(A);
+        assertTrue(queue.isEmpty());
+
+        queue.add(B, 5);
+        queue.request(C, 9);
+        queue.request(B, RegionPriority.VIEWED);
+        assertEquals(B, queue.poll());
+        assertEquals(C, queue.poll());
+    }
+
+    @Test
+    void prioritizeNeverQueues() {
+        RegionQueue queue = new RegionQueue();
+        queue.prioritize(A, 1);
+        assertTrue(queue.isEmpty());
+
+        queue.add(A, 9);
+        queue.add(B, 5);
+        queue.prioritize(A, 1);
+        queue.prioritize(B, 7);
+        assertEquals(A, queue.poll());
+        assertEquals(B, queue.poll());
+    }
+
+    @Test
+    void prioritizeMovesFollowUpsForward() {
+        RegionQueue queue = new RegionQueue();
+        queue.add(A, 5);
+        assertEquals(A, queue.poll());
+        queue.add(A, 10);
+        queue.prioritize(A, 1);
+        queue.add(B, 5);
+        queue.done(A);
+        assertEquals(A, queue.poll());
+        assertEquals(B, queue.poll());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.util;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedIntArrayAccessTest {
+    private static long[] data(int bits, int size, long seed) {
+        int perLong = 64 / bits;
+        long[] data = new long[(size + perLong - 1) / perLong];
+        Random random = new Random(seed);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextLong();
+        }
+        return data;
+    }
+
+    @Test
+    void unpackMatchesGet() {
+        for (int bits = 1; bits <= 32; bits++) {
+            for (int size : new int[]{64, 256, 4096}) {
+                PackedIntArrayAccess access = new PackedIntArrayAccess(bits, data(bits, size, bits * 31L + size));
+                int[] unpacked = access.unpack(new int[size]);
+                for (int i = 0; i < size; i++) {
+                    assertEquals(access.get(i), unpacked[i], "bits " + bits + ", size " + size + ", index " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void unpackStopsAtOutLength() {
+        // 9 bits leaves one unused bit at the top of every long, like the heightmaps
+        PackedIntArrayAccess access = new PackedIntArrayAccess(9, data(9, 256, 9));
+        int[] full = access.unpack(new int[256]);
+        int[] part = access.unpack(new int[100]);
+        for (int i = 0; i < part.length; i++) {
+            assertEquals(full[i], part[i]);
+        }
+    }
+
+    @Test
+    void unpackLeavesMissingDataAlone() {
+        PackedIntArrayAccess access = new PackedIntArrayAccess(4, new long[]{0xFEDCBA9876543210L});
+        int[] out = access.unpack(new int[20]);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0, 0, 0, 0}, out);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-2023 William Blake Galbreath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.pl3x.map.core.util;
+
+import java.util.List;
+import net.pl3x.map.core.markers.Point;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SimplifyTest {
+    @Test
+    void keepsEndPoints() {
+        assertArrayEquals(new int[0], Simplify.zoomLevels(List.of()));
+        assertArrayEquals(new int[]{Simplify.ALWAYS}, Simplify.zoomLevels(List.of(Point.of(3, 4))));
+        assertArrayEquals(new int[]{Simplify.ALWAYS, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(Point.of(0, 0), Point.of(10, 10))));
+    }
+
+    @Test
+    void dropsPointsOnTheLine() {
+        assertArrayEquals(new int[]{Simplify.ALWAYS, Simplify.NEVER, Simplify.NEVER, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(10, 10), Point.of(20, 20), Point.of(30, 30)
+        )));
+        // repeated points never change the line either
+        assertArrayEquals(new int[]{Simplify.ALWAYS, Simplify.NEVER, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(0, 0), Point.of(5, 5)
+        )));
+    }
+
+    @Test
+    void levelIsLog2OfDistance() {
+        // at zoom out level z a pixel covers 2^z blocks
+        assertArrayEquals(new int[]{Simplify.ALWAYS, 2, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(8, 4), Point.of(16, 0)
+        )));
+        assertArrayEquals(new int[]{Simplify.ALWAYS, 2, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(8, 7), Point.of(16, 0)
+        )));
+        assertArrayEquals(new int[]{Simplify.ALWAYS, 0, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(8, 1), Point.of(16, 0)
+        )));
+        // zoomed in past the tiles' own resolution
+        assertArrayEquals(new int[]{Simplify.ALWAYS, -1, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(1, 1), Point.of(3, 1)
+        )));
+    }
+
+    @Test
+    void pointsNeverOutrankThePointTheyWereSplitFrom() {
+        // the middle point is 7 blocks off the line, level 2. the one before it is 9.5 blocks
+        // off the line to it, which alone would be level 3, but it only shows once the middle does
+        assertArrayEquals(new int[]{Simplify.ALWAYS, 2, 2, Simplify.ALWAYS}, Simplify.zoomLevels(List.of(
+                Point.of(0, 0), Point.of(500, -6), Point.of(1000, 7), Point.of(2000, 0)
+        )));
+    }
+}
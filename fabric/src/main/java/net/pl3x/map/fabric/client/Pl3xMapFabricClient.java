@@ -24,6 +24,7 @@
 package net.pl3x.map.fabric.client;
 
 import com.mojang.blaze3d.platform.InputConstants;
+import java.util.Collection;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
@@ -145,4 +146,16 @@ public class Pl3xMapFabricClient implements ClientModInitializer {
     public void updateAllMapTextures() {
         Minecraft.getInstance().gameRenderer.getMapRenderer().maps.values().forEach(tex -> ((MapInstance) tex).updateImage());
     }
+
+    public void updateMapTextures(@NotNull String world, @NotNull Collection<@NotNull String> paths) {
+        Minecraft.getInstance().gameRenderer.getMapRenderer().maps.values().forEach(tex -> {
+            MapInstance map = (MapInstance) tex;
+            for (String path : paths) {
+                if (map.usesTile(world, path)) {
+                    map.updateImage();
+                    return;
+                }
+            }
+        });
+    }
 }
@@ -31,4 +31,6 @@ public interface MapInstance {
     void setData(byte scale, int centerX, int centerZ, @NotNull String world);
 
     void updateImage();
+
+    boolean usesTile(@NotNull String world, @NotNull String path);
 }
@@ -23,29 +23,50 @@
  */
 package net.pl3x.map.fabric.client.manager;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.imageio.ImageIO;
+import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.scheduler.Task;
-import net.pl3x.map.core.util.Mathf;
 import net.pl3x.map.fabric.client.Pl3xMapFabricClient;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class TileManager {
     private static final BufferedImage EMPTY_IMAGE = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+    private static final String RENDERER = "basic";
 
-    private final Map<@NotNull String, @NotNull LoadingCache<@NotNull Long, @NotNull BufferedImage>> tiles = new ConcurrentHashMap<>();
+    private final Map<@NotNull String, @NotNull Cache<@NotNull String, @NotNull Tile>> tiles = new ConcurrentHashMap<>();
+    private final Map<@NotNull TileKey, @NotNull Integer> loading = new ConcurrentHashMap<>();
+    private final Set<@NotNull TileKey> arrived = ConcurrentHashMap.newKeySet();
+    private final Map<@NotNull String, @NotNull Integer> maxZoom = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ExecutorService executor = Pl3xMap.ThreadFactory.createService("Pl3xMap-Tiles", 2);
     private final Pl3xMapFabricClient mod;
 
     private Task task;
+    private volatile boolean mapWindows;
 
     public TileManager(@NotNull Pl3xMapFabricClient mod) {
         this.mod = mod;
@@ -56,8 +77,11 @@ public class TileManager {
         if (this.task != null) {
             this.task.cancel();
         }
-        // update once next tick
-        this.mod.getScheduler().addTask(1, this::update);
+        // check what the server supports and update once next tick
+        this.mod.getScheduler().addTask(1, () -> {
+            loadSettings();
+            update();
+        });
         // setup repeating task to update every 5 seconds
         this.task = new Task(100, true) {
             @Override
@@ -69,63 +93,225 @@ public class TileManager {
         this.mod.getScheduler().addTask(this.task);
     }
 
-    public @NotNull BufferedImage get(@NotNull String world, int regionX, int regionZ) {
-        try {
-            return this.tiles.computeIfAbsent(world, k -> Loader.create(this.mod, world)).get(Mathf.asLong(regionX, regionZ));
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+    /**
+     * Get the path of a tile, relative to the server url.
+     *
+     * @param world world name
+     * @param zoom  zoom out level
+     * @param x     tile x coordinate at this zoom level
+     * @param z     tile z coordinate at this zoom level
+     * @return tile path
+     */
+    public static @NotNull String tilePath(@NotNull String world, int zoom, int x, int z) {
+        return String.format("tiles/%s/%d/%s/%d_%d.png", world, zoom, RENDERER, x, z);
+    }
+
+    /**
+     * Get the path of the 128x128 window a map shows, relative to the server url.
+     *
+     * @param world world name
+     * @param scale map scale
+     * @param x     block x coordinate of the first pixel
+     * @param z     block z coordinate of the first pixel
+     * @return window path
+     */
+    public static @NotNull String windowPath(@NotNull String world, int scale, int x, int z) {
+        return String.format("tiles/window?world=%s&renderer=%s&scale=%d&x=%d&z=%d", world, RENDERER, scale, x, z);
+    }
+
+    /**
+     * Get if the server composites map windows for us (see {@link #windowPath(String, int, int, int)}).
+     *
+     * @return true if map windows are available
+     */
+    public boolean hasMapWindows() {
+        return this.mapWindows;
+    }
+
+    /**
+     * Get how far a world's tiles are zoomed out on the server.
+     * <p>
+     * Returns 0 until the world's settings are downloaded.
+     *
+     * @param world world name
+     * @return max zoom out level
+     */
+    public int getMaxZoom(@NotNull String world) {
+        Integer zoom = this.maxZoom.putIfAbsent(world, 0);
+        if (zoom == null) {
+            loadMaxZoom(world);
+            return 0;
+        }
+        return zoom;
+    }
+
+    /**
+     * Get a tile or map window without blocking. If it is not downloaded yet an empty
+     * placeholder is returned, and maps showing it are redrawn once it arrives.
+     *
+     * @param world world name
+     * @param path  path from {@link #tilePath(String, int, int, int)} or {@link #windowPath(String, int, int, int)}
+     * @return image, or an empty placeholder
+     */
+    public @NotNull BufferedImage get(@NotNull String world, @NotNull String path) {
+        Tile tile = getCache(world).getIfPresent(path);
+        if (tile == null) {
+            load(world, path);
+            return EMPTY_IMAGE;
         }
+        return tile.image();
     }
 
     public void clear() {
+        // drop anything still downloading from the old server
+        this.generation.incrementAndGet();
+        this.loading.clear();
+        this.arrived.clear();
+        this.maxZoom.clear();
+        this.mapWindows = false;
         this.tiles.forEach((world, cache) -> cache.invalidateAll());
         this.tiles.clear();
     }
 
     public void update() {
-        for (Map.Entry<String, LoadingCache<Long, BufferedImage>> entry : this.tiles.entrySet()) {
-            LoadingCache<Long, BufferedImage> cache = entry.getValue();
-            Collections.unmodifiableCollection(cache.asMap().keySet()).forEach(cache::refresh);
+        // refresh in the background, maps keep showing the old tile until the new one arrives
+        for (Map.Entry<String, Cache<String, Tile>> entry : this.tiles.entrySet()) {
+            for (String path : List.copyOf(entry.getValue().asMap().keySet())) {
+                load(entry.getKey(), path);
+            }
         }
-        this.mod.updateAllMapTextures();
     }
 
-    private static class Loader extends CacheLoader<@NotNull Long, @NotNull BufferedImage> {
-        private static @NotNull LoadingCache<@NotNull Long, @NotNull BufferedImage> create(@NotNull Pl3xMapFabricClient mod, @NotNull String world) {
-            return CacheBuilder.newBuilder().maximumSize(100).build(new Loader(mod, world));
+    private @NotNull Cache<@NotNull String, @NotNull Tile> getCache(@NotNull String world) {
+        return this.tiles.computeIfAbsent(world, k -> CacheBuilder.newBuilder().maximumSize(100).build());
+    }
+
+    private void loadSettings() {
+        String serverUrl = this.mod.getServerUrl();
+        if (serverUrl == null) {
+            return;
         }
+        int generation = this.generation.get();
+        this.executor.execute(() -> {
+            JsonObject json = readJson(serverUrl + "/tiles/settings.json");
+            JsonElement mapWindow = json == null ? null : json.get("mapWindow");
+            if (generation == this.generation.get() && mapWindow != null && mapWindow.getAsBoolean()) {
+                this.mapWindows = true;
+                this.mod.getScheduler().addTask(0, this.mod::updateAllMapTextures);
+            }
+        });
+    }
 
-        private final Pl3xMapFabricClient mod;
-        private final String world;
+    private void loadMaxZoom(@NotNull String world) {
+        String serverUrl = this.mod.getServerUrl();
+        if (serverUrl == null) {
+            return;
+        }
+        int generation = this.generation.get();
+        this.executor.execute(() -> {
+            JsonObject json = readJson(serverUrl + "/tiles/" + world + "/settings.json");
+            JsonElement zoom = json == null || !json.has("zoom") ? null : json.getAsJsonObject("zoom").get("maxOut");
+            if (generation == this.generation.get() && zoom != null && zoom.getAsInt() > 0) {
+                this.maxZoom.put(world, zoom.getAsInt());
+                this.mod.getScheduler().addTask(0, this.mod::updateAllMapTextures);
+            }
+        });
+    }
 
-        private Loader(@NotNull Pl3xMapFabricClient mod, @NotNull String world) {
-            this.mod = mod;
-            this.world = world;
+    private void load(@NotNull String world, @NotNull String path) {
+        String serverUrl = this.mod.getServerUrl();
+        if (serverUrl == null) {
+            return;
         }
 
-        @Override
-        public @NotNull BufferedImage load(@NotNull Long region) {
-            if (this.mod.getServerUrl() == null) {
-                return EMPTY_IMAGE;
+        int generation = this.generation.get();
+        TileKey key = new TileKey(world, path);
+        if (this.loading.putIfAbsent(key, generation) != null) {
+            // already on its way
+            return;
+        }
+
+        Tile previous = getCache(world).getIfPresent(path);
+
+        this.executor.execute(() -> {
+            Tile tile = read(serverUrl + "/" + path, previous);
+            this.loading.remove(key, generation);
+            if (generation != this.generation.get()) {
+                return;
             }
+            if (tile == previous || (previous != null && tile.image() == EMPTY_IMAGE && previous.image() == EMPTY_IMAGE)) {
+                // nothing changed; nothing to redraw
+                return;
+            }
+            getCache(world).put(path, tile);
+            this.arrived.add(key);
+            if (!this.flushScheduled.getAndSet(true)) {
+                this.mod.getScheduler().addTask(0, this::flush);
+            }
+        });
+    }
+
+    private void flush() {
+        // redraw maps on the client thread, once per tick for everything that arrived since
+        this.flushScheduled.set(false);
+        Map<String, List<String>> paths = new HashMap<>();
+        for (TileKey key : List.copyOf(this.arrived)) {
+            this.arrived.remove(key);
+            paths.computeIfAbsent(key.world(), k -> new ArrayList<>()).add(key.path());
+        }
+        paths.forEach(this.mod::updateMapTextures);
+    }
 
-            String url = String.format("%s/tiles/%s/%d/%s/%d_%d.png",
-                    this.mod.getServerUrl(),
-                    this.world,
-                    0,
-                    "basic",
-                    Mathf.longToX(region),
-                    Mathf.longToZ(region)
-            );
-
-            try {
-                BufferedImage image = ImageIO.read(new URL(url));
-                if (image != null) {
-                    return image;
+    private @Nullable JsonObject readJson(@NotNull String url) {
+        try (Reader reader = new InputStreamReader(new URL(url).openStream(), StandardCharsets.UTF_8)) {
+            JsonElement json = JsonParser.parseReader(reader);
+            return json.isJsonObject() ? json.getAsJsonObject() : null;
+        } catch (Exception ignore) {
+            return null;
+        }
+    }
+
+    private @NotNull Tile read(@NotNull String url, @Nullable Tile previous) {
+        try {
+            // keep-alive connections are reused as long as every response body gets closed
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            // let the server answer with 304 when the tile did not change
+            if (previous != null && previous.etag() != null) {
+                connection.setRequestProperty("If-None-Match", previous.etag());
+            }
+            if (previous != null && previous.lastModified() != null) {
+                connection.setRequestProperty("If-Modified-Since", previous.lastModified());
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+                return previous;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                InputStream error = connection.getErrorStream();
+                if (error != null) {
+                    error.close();
                 }
-            } catch (IOException ignore) {
+                return orEmpty(previous);
             }
-            return EMPTY_IMAGE;
+            try (InputStream in = connection.getInputStream()) {
+                BufferedImage image = ImageIO.read(in);
+                return new Tile(image == null ? EMPTY_IMAGE : image,
+                        connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"));
+            }
+        } catch (IOException ignore) {
+            return orEmpty(previous);
         }
     }
+
+    private @NotNull Tile orEmpty(@Nullable Tile previous) {
+        // keep showing what we have through server restarts and network hiccups
+        return previous != null ? previous : new Tile(EMPTY_IMAGE, null, null);
+    }
+
+    private record TileKey(@NotNull String world, @NotNull String path) {
+    }
+
+    private record Tile(@NotNull BufferedImage image, @Nullable String etag, @Nullable String lastModified) {
+    }
 }
@@ -25,6 +25,8 @@ package net.pl3x.map.fabric.client.mixin;
 
 import com.mojang.blaze3d.platform.NativeImage;
 import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
 import net.minecraft.client.gui.MapRenderer;
 import net.minecraft.client.renderer.texture.DynamicTexture;
 import net.minecraft.world.level.material.MapColor;
@@ -32,7 +34,9 @@ import net.minecraft.world.level.saveddata.maps.MapItemSavedData;
 import net.pl3x.map.core.util.Colors;
 import net.pl3x.map.fabric.client.Pl3xMapFabricClient;
 import net.pl3x.map.fabric.client.duck.MapInstance;
+import net.pl3x.map.fabric.client.manager.TileManager;
 import org.jetbrains.annotations.NotNull;
+import org.lwjgl.system.MemoryUtil;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -50,7 +54,11 @@ public abstract class MapInstanceMixin implements MapInstance {
     @Shadow
     boolean requiresUpload;
 
-    private final BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+    // pl3xmap colors, already flipped to the texture's byte order
+    private final int[] tilePixels = new int[128 * 128];
+    // tile colors composited with the vanilla map, ready to copy into the texture
+    private final int[] texturePixels = new int[128 * 128];
+    private final Set<String> tiles = new HashSet<>();
 
     private Pl3xMapFabricClient mod;
 
@@ -137,21 +145,49 @@ public abstract class MapInstanceMixin implements MapInstance {
 
         // pre-calculations
         int mod = 1 << this.scale;
-        int startX = (this.centerX / mod - 64) * mod;
-        int startZ = (this.centerZ / mod - 64) * mod;
+        int startX = (this.centerX / mod - 64) * mod + this.scale;
+        int startZ = (this.centerZ / mod - 64) * mod + this.scale;
+
+        TileManager tileManager = this.mod.getTileManager();
+        this.tiles.clear();
+
+        if (tileManager.hasMapWindows()) {
+            // the server composites exactly the pixels this map shows
+            String path = TileManager.windowPath(this.world, this.scale, startX, startZ);
+            this.tiles.add(path);
+            BufferedImage img = tileManager.get(this.world, path);
+            img.getRGB(0, 0, 128, 128, this.tilePixels, 0, 128);
+            for (int i = 0; i < this.tilePixels.length; i++) {
+                this.tilePixels[i] = Colors.rgb2bgr(this.tilePixels[i]);
+            }
+            // mark dirty
+            this.requiresUpload = true;
+            return;
+        }
+
+        // sample the zoomed out tiles matching this map's scale, as far as the server has them
+        int zoom = Math.min(this.scale, tileManager.getMaxZoom(this.world));
 
         // store the pixels from pl3xmap tiles onto our own temp image
-        BufferedImage img;
+        BufferedImage img = null;
+        int lastTileX = 0;
+        int lastTileZ = 0;
         for (int x = 0; x < 128; x++) {
             for (int z = 0; z < 128; z++) {
-                int blockX = startX + (x * mod) + this.scale;
-                int blockZ = startZ + (z * mod) + this.scale;
+                int pixelX = (startX + (x * mod)) >> zoom;
+                int pixelZ = (startZ + (z * mod)) >> zoom;
 
                 // get actual tile from pl3xmap website
-                img = this.mod.getTileManager().get(this.world, blockX >> 9, blockZ >> 9);
+                if (img == null || pixelX >> 9 != lastTileX || pixelZ >> 9 != lastTileZ) {
+                    lastTileX = pixelX >> 9;
+                    lastTileZ = pixelZ >> 9;
+                    String path = TileManager.tilePath(this.world, zoom, lastTileX, lastTileZ);
+                    this.tiles.add(path);
+                    img = tileManager.get(this.world, path);
+                }
 
                 // get pixel color from tile
-                this.image.setRGB(x, z, Colors.rgb2bgr(img.getRGB(blockX & 511, blockZ & 511)));
+                this.tilePixels[x + z * 128] = Colors.rgb2bgr(img.getRGB(pixelX & 511, pixelZ & 511));
             }
         }
 
@@ -159,6 +195,11 @@ public abstract class MapInstanceMixin implements MapInstance {
         this.requiresUpload = true;
     }
 
+    @Override
+    public boolean usesTile(@NotNull String world, @NotNull String path) {
+        return this.isReady && !this.skip && world.equals(this.world) && this.tiles.contains(path);
+    }
+
     private boolean updateMapTexture() {
         NativeImage pixels = this.texture.getPixels();
         if (pixels == null) {
@@ -169,30 +210,32 @@ public abstract class MapInstanceMixin implements MapInstance {
         int color;
         int pl3xColor;
 
-        for (int x = 0; x < 128; x++) {
-            for (int z = 0; z < 128; z++) {
-                // get vanilla color
-                color = this.data.colors[x + z * 128] & 255;
-
-                // check if vanilla color exists
-                if (color >> 2 == 0) {
-                    // vanilla color missing (fog of war); draw transparent pixel
-                    pixels.setPixelRGBA(x, z, 0);
-                    continue;
-                }
+        // both arrays and the texture are laid out as x + z * 128
+        for (int i = 0; i < this.texturePixels.length; i++) {
+            // get vanilla color
+            color = this.data.colors[i] & 255;
 
-                // vanilla color exists; grab color from pl3xmap tile
-                pl3xColor = this.image.getRGB(x, z);
-                if (pl3xColor == 0) {
-                    // pl3xmap color is missing; fallback to vanilla color
-                    pixels.setPixelRGBA(x, z, MapColor.getColorFromPackedId(color));
-                } else {
-                    // draw pl3xmap tile pixel
-                    pixels.setPixelRGBA(x, z, pl3xColor);
-                }
+            // check if vanilla color exists
+            if (color >> 2 == 0) {
+                // vanilla color missing (fog of war); draw transparent pixel
+                this.texturePixels[i] = 0;
+                continue;
+            }
+
+            // vanilla color exists; grab color from pl3xmap tile
+            pl3xColor = this.tilePixels[i];
+            if (pl3xColor == 0) {
+                // pl3xmap color is missing; fallback to vanilla color
+                this.texturePixels[i] = MapColor.getColorFromPackedId(color);
+            } else {
+                // draw pl3xmap tile pixel
+                this.texturePixels[i] = pl3xColor;
             }
         }
 
+        // copy everything at once, same byte order as setPixelRGBA
+        MemoryUtil.memIntBuffer(pixels.pixels, this.texturePixels.length).put(this.texturePixels);
+
         // finalize the texture
         this.texture.upload();
         return true;
@@ -11,14 +11,27 @@ import {Rectangle} from "../marker/Rectangle";
 import {Marker, Type} from "../marker/Marker";
 import {MarkerOptions, Options} from "../marker/options/MarkerOptions";
 import {World} from "../world/World";
-import {fireCustomEvent, getJSON, getOrCreatePane, insertCss, isset, removeCss} from "../util/Util";
+import {fireCustomEvent, getBytes, getJSON, getOrCreatePane, getZoomLevel, insertCss, isset, removeCss, toCenteredLatLng, toLatLngBounds, toPoint} from "../util/Util";
+import {Point} from "../util/Point";
+import {BinaryMarkerReader} from "../util/BinaryMarkerReader";
 import {Tooltip} from "../marker/options/Tooltip";
 import {Popup} from "../marker/options/Popup";
 
-interface MarkerData {
+export interface MarkerData {
     type: string;
     data: unknown[];
-    options: Options;
+    options?: Options;
+}
+
+// with shared options, markers reference their options by index into the file's options (see UpdateMarkerData.java)
+interface SharedMarkerFile {
+    options: Options[];
+    markers: { type: string, data: unknown[], options?: number }[];
+}
+
+interface MarkerTile {
+    hash: string;
+    markers: MarkerData[];
 }
 
 export class MarkerLayer extends L.LayerGroup {
@@ -33,6 +46,9 @@ export class MarkerLayer extends L.LayerGroup {
         "rect": (type: Type) => new Rectangle(type)
     }
 
+    // must match the cell size in UpdateMarkerData.java
+    private static readonly CLUSTER_CELL_SIZE: number = 64;
+
     declare options: L.LayerOptions;
 
     private readonly _key: string;
@@ -44,12 +60,32 @@ export class MarkerLayer extends L.LayerGroup {
     private readonly _zIndex: number;
     private readonly _pane: string;
     private readonly _css: string;
+    private readonly _tiled: boolean;
+    private readonly _clustered: boolean;
+    private readonly _binary: boolean;
 
     private readonly _markers: Map<string, Marker> = new Map();
+    private readonly _markerData: Map<string, MarkerData> = new Map();
+    private readonly _markerOptions: WeakMap<Options, MarkerOptions> = new WeakMap();
+
+    // tiled layers only keep the markers of regions in view (see UpdateMarkerData.java)
+    private readonly _tiles: Map<string, MarkerTile> = new Map();
+    private readonly _loadingTiles: Set<string> = new Set();
+    private _tileIndex: Map<string, string> = new Map();
+    private _world?: World;
+    private readonly _onMoveEnd = (): void => this.loadTiles();
+    private readonly _onZoomEnd = (): void => {
+        this._markers.forEach((marker: Marker): void => marker.onZoom());
+        this.setClusters();
+    };
+
+    // icon clusters per zoom level, as [cellX, cellZ, count, x, z, minX, minZ, maxX, maxZ]
+    private _clusters: Map<number, number[][]> = new Map();
+    private _clusterMarkers: L.Marker[] = [];
 
     private _timer: NodeJS.Timeout | undefined;
 
-    constructor(key: string, label: string, interval: number, showControls: boolean, defaultHidden: boolean, priority: number, zIndex: number, pane: string, css: string) {
+    constructor(key: string, label: string, interval: number, showControls: boolean, defaultHidden: boolean, priority: number, zIndex: number, pane: string, css: string, tiled: boolean, clustered: boolean, binary: boolean) {
         super(undefined, {
             attribution: undefined
         });
@@ -62,6 +98,9 @@ export class MarkerLayer extends L.LayerGroup {
         this._zIndex = zIndex;
         this._pane = pane;
         this._css = css;
+        this._tiled = tiled;
+        this._clustered = clustered;
+        this._binary = binary;
 
         this.setZIndex(zIndex);
 
@@ -75,6 +114,9 @@ export class MarkerLayer extends L.LayerGroup {
             insertCss(css, key);
         }
 
+        // long lines drop points that can't be seen at the current zoom level
+        Pl3xMap.instance.map.on('zoomend', this._onZoomEnd);
+
         fireCustomEvent("overlayadded", this);
     }
 
@@ -114,59 +156,277 @@ export class MarkerLayer extends L.LayerGroup {
         return this._css;
     }
 
+    get tiled(): boolean {
+        return this._tiled;
+    }
+
+    get clustered(): boolean {
+        return this._clustered;
+    }
+
+    get binary(): boolean {
+        return this._binary;
+    }
+
     update(world: World): void {
-        getJSON(`tiles/${world.name}/markers/${this._key}.json`)
-            .then((json): void => {
-                //this.clearLayers(); // do not just clear markers, remove the ones that are missing
-                const toRemove: Set<string> = new Set(this._markers.keys());
-
-                for (const index in Object.keys(json)) {
-                    const existing: Marker | undefined = this._markers.get(json[index].data.key);
-                    if (existing) {
-                        // update
-                        const data = json[index];
-                        const options: MarkerOptions | undefined = isset(data.options) ? new MarkerOptions(data.options) : undefined;
-                        existing.update(data.data, options);
-                        // do not remove this marker
-                        toRemove.delete(existing.key);
-                    } else {
-                        // new marker
-                        const marker: Marker | undefined = this.parseMarker(json[index]);
-                        if (marker) {
-                            this._markers.set(marker.key, marker);
-                            marker.marker.addTo(this);
-                            // inform the events
-                            fireCustomEvent('markeradded', marker);
-                        }
-                    }
+        if (this._clustered) {
+            getJSON(`tiles/${world.name}/markers/${this._key}.clusters.json`)
+                .then((json): void => {
+                    this._clusters = new Map();
+                    Object.entries(json ?? {}).forEach((entry: [string, unknown]): void => {
+                        this._clusters.set(Number(entry[0]), entry[1] as number[][]);
+                    });
+                    this.setClusters();
+                });
+        }
+        if (this._tiled) {
+            this.updateTiled(world);
+            return;
+        }
+        this.getMarkers(`tiles/${world.name}/markers/${this._key}`)
+            .then((json: MarkerData[] | undefined): void => {
+                if (json) {
+                    this.setMarkers(json);
                 }
+                this._timer = setTimeout(() => this.update(world), this._updateInterval);
+            });
+    }
 
-                toRemove.forEach((key: string): void => {
-                    // remove players not in updated settings file
-                    const marker: Marker | undefined = this._markers.get(key);
-                    if (marker) {
-                        this._markers.delete(key);
-                        marker.marker.remove();
-                        this.removeLayer(marker.marker);
-                        fireCustomEvent('markerremoved', marker);
+    private updateTiled(world: World): void {
+        if (!this._world) {
+            Pl3xMap.instance.map.on('moveend', this._onMoveEnd);
+        }
+        this._world = world;
+        getJSON(`tiles/${world.name}/markers/${this._key}/index.json`)
+            .then((json): void => {
+                this._tileIndex = new Map();
+                Object.entries(json ?? {}).forEach((entry: [string, unknown]): void => {
+                    this._tileIndex.set(entry[0], String(entry[1]));
+                });
+                this.loadTiles();
+                this._timer = setTimeout(() => this.update(world), this._updateInterval);
+            });
+    }
+
+    private loadTiles(): void {
+        const world: World | undefined = this._world;
+        if (!world) {
+            return;
+        }
+        const visible: Set<string> = this.getVisibleTiles();
+
+        // forget tiles that went out of view or no longer have markers
+        let changed: boolean = false;
+        this._tiles.forEach((tile: MarkerTile, name: string): void => {
+            if (!visible.has(name)) {
+                this._tiles.delete(name);
+                changed = true;
+            }
+        });
+        if (changed) {
+            this.setTileMarkers();
+        }
+
+        // fetch tiles that came into view or changed since we loaded them
+        visible.forEach((name: string): void => {
+            const hash: string = this._tileIndex.get(name)!;
+            if (this._tiles.get(name)?.hash === hash || this._loadingTiles.has(name)) {
+                return;
+            }
+            this._loadingTiles.add(name);
+            this.getMarkers(`tiles/${world.name}/markers/${this._key}/${name}`)
+                .catch((): undefined => undefined)
+                .then((json: MarkerData[] | undefined): void => {
+                    this._loadingTiles.delete(name);
+                    // drop stale responses, the next update will catch up
+                    if (json && world === this._world && this._tileIndex.get(name) === hash && this.getVisibleTiles().has(name)) {
+                        this._tiles.set(name, {hash: hash, markers: json});
+                        this.setTileMarkers();
                     }
                 });
+        });
+    }
 
-                this._timer = setTimeout(() => this.update(world), this._updateInterval);
+    private getMarkers(path: string): Promise<MarkerData[] | undefined> {
+        if (this._binary) {
+            return getBytes(`${path}.bin`)
+                .then((buffer: ArrayBuffer | undefined): MarkerData[] | undefined => buffer ? BinaryMarkerReader.decode(buffer) : undefined);
+        }
+        return getJSON(`${path}.json`)
+            .then((json: MarkerData[] | SharedMarkerFile | undefined): MarkerData[] | undefined => json ? MarkerLayer.resolveOptions(json) : undefined);
+    }
+
+    private static resolveOptions(json: MarkerData[] | SharedMarkerFile): MarkerData[] {
+        if (Array.isArray(json)) {
+            return json;
+        }
+        return json.markers.map((marker: { type: string, data: unknown[], options?: number }): MarkerData => ({
+            type: marker.type,
+            data: marker.data,
+            options: marker.options === undefined ? undefined : json.options[marker.options]
+        }));
+    }
+
+    private getOptions(options?: Options): MarkerOptions | undefined {
+        if (!options) {
+            return undefined;
+        }
+        // markers sharing options also share the parsed leaflet options
+        let parsed: MarkerOptions | undefined = this._markerOptions.get(options);
+        if (!parsed) {
+            parsed = new MarkerOptions(options);
+            this._markerOptions.set(options, parsed);
+        }
+        return parsed;
+    }
+
+    private getVisibleTiles(): Set<string> {
+        const bounds: L.LatLngBounds = Pl3xMap.instance.map.getBounds();
+        const corner1: L.PointTuple = toPoint(bounds.getSouthWest());
+        const corner2: L.PointTuple = toPoint(bounds.getNorthEast());
+        const minX: number = Math.floor(Math.min(corner1[0], corner2[0])) >> 9;
+        const maxX: number = Math.floor(Math.max(corner1[0], corner2[0])) >> 9;
+        const minZ: number = Math.floor(Math.min(corner1[1], corner2[1])) >> 9;
+        const maxZ: number = Math.floor(Math.max(corner1[1], corner2[1])) >> 9;
+
+        const visible: Set<string> = new Set();
+        this._tileIndex.forEach((hash: string, name: string): void => {
+            if (name === 'global') {
+                visible.add(name);
+                return;
+            }
+            const [x, z] = name.split('_').map(Number);
+            if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+                visible.add(name);
+            }
+        });
+        return visible;
+    }
+
+    private setTileMarkers(): void {
+        // markers crossing region borders show up in more than one tile
+        const markers: Map<string, MarkerData> = new Map();
+        this._tiles.forEach((tile: MarkerTile): void => {
+            tile.markers.forEach((data: MarkerData): void => {
+                markers.set(MarkerLayer.getKey(data), data);
             });
+        });
+        this.setMarkers([...markers.values()]);
+    }
+
+    private setMarkers(json: MarkerData[]): void {
+        //this.clearLayers(); // do not just clear markers, remove the ones that are missing
+        const toRemove: Set<string> = new Set(this._markers.keys());
+
+        json.forEach((data: MarkerData): void => {
+            const key: string = MarkerLayer.getKey(data);
+            const existing: Marker | undefined = this._markers.get(key);
+            if (existing) {
+                // update, unless this is the exact data we already applied
+                if (this._markerData.get(key) !== data) {
+                    existing.update(data.data, this.getOptions(data.options));
+                    this._markerData.set(key, data);
+                }
+                // do not remove this marker
+                toRemove.delete(existing.key);
+            } else {
+                // new marker
+                const marker: Marker | undefined = this.parseMarker(data);
+                if (marker) {
+                    this._markers.set(marker.key, marker);
+                    this._markerData.set(marker.key, data);
+                    marker.marker.addTo(this);
+                    // inform the events
+                    fireCustomEvent('markeradded', marker);
+                }
+            }
+        });
+
+        toRemove.forEach((key: string): void => {
+            // remove markers not in updated data
+            const marker: Marker | undefined = this._markers.get(key);
+            if (marker) {
+                this._markers.delete(key);
+                this._markerData.delete(key);
+                marker.marker.remove();
+                this.removeLayer(marker.marker);
+                fireCustomEvent('markerremoved', marker);
+            }
+        });
+
+        this.setClusters();
+    }
+
+    private setClusters(): void {
+        if (!this._clustered) {
+            return;
+        }
+        this._clusterMarkers.forEach((marker: L.Marker): void => {
+            this.removeLayer(marker);
+        });
+        this._clusterMarkers = [];
+
+        const zoom: number = getZoomLevel();
+        const clusters: number[][] = (zoom < 0 ? undefined : this._clusters.get(zoom)) ?? [];
+        const cellSize: number = MarkerLayer.CLUSTER_CELL_SIZE << Math.max(zoom, 0);
+        const cells: Set<string> = new Set(clusters.map((cluster: number[]): string => `${cluster[0]}_${cluster[1]}`));
+
+        // hide icons that are part of a cluster at this zoom level
+        this._markers.forEach((marker: Marker): void => {
+            if (!(marker instanceof Icon)) {
+                return;
+            }
+            const point: L.PointTuple = toPoint((marker.marker as L.Marker).getLatLng());
+            const cell: string = `${Math.floor(Math.floor(point[0]) / cellSize)}_${Math.floor(Math.floor(point[1]) / cellSize)}`;
+            if (cells.has(cell)) {
+                this.removeLayer(marker.marker);
+            } else if (!this.hasLayer(marker.marker)) {
+                this.addLayer(marker.marker);
+            }
+        });
+
+        clusters.forEach((cluster: number[]): void => {
+            const [, , count, x, z, minX, minZ, maxX, maxZ] = cluster;
+            let options: L.MarkerOptions = {
+                icon: L.divIcon({className: 'marker-cluster', html: `<span>${count}</span>`, iconSize: [32, 32]})
+            };
+            if (isset(this.options.pane)) {
+                options = {...options, pane: this.options.pane};
+            }
+            const marker: L.Marker = L.marker(toCenteredLatLng(new Point(x, z)), options);
+            marker.on('click', (): void => {
+                Pl3xMap.instance.map.fitBounds(toLatLngBounds(new Point(minX, minZ), new Point(maxX, maxZ)));
+            });
+            this._clusterMarkers.push(marker);
+            this.addLayer(marker);
+        });
     }
 
     unload(): void {
         clearTimeout(this._timer);
+        Pl3xMap.instance.map.off('zoomend', this._onZoomEnd);
+        if (this._world) {
+            Pl3xMap.instance.map.off('moveend', this._onMoveEnd);
+            this._world = undefined;
+        }
+        this._tiles.clear();
+        this._tileIndex.clear();
+        this._clusters.clear();
+        this._clusterMarkers = [];
         removeCss(this._key);
         this._markers.clear();
+        this._markerData.clear();
         this.clearLayers();
         this.removeFrom(Pl3xMap.instance.map);
         fireCustomEvent("overlayremoved", this);
     }
 
+    private static getKey(data: MarkerData): string {
+        return (data.data as unknown as { key: string }).key;
+    }
+
     private parseMarker(data: MarkerData): Marker | undefined {
-        const options: MarkerOptions | undefined = isset(data.options) ? new MarkerOptions(data.options) : undefined;
+        const options: MarkerOptions | undefined = this.getOptions(data.options);
 
         const type: ((type: Type) => Rectangle) | ((type: Type) => Polyline) | ((type: Type) => MultiPolyline) | ((type: Type) => Icon) | ((type: Type) => Polygon) | ((type: Type) => Circle) | ((type: Type) => MultiPolygon) | ((type: Type) => Ellipse) = MarkerLayer.TYPES[data.type as keyof typeof MarkerLayer.TYPES];
         const marker: Rectangle | Polyline | MultiPolyline | Icon | Polygon | Circle | MultiPolygon | Ellipse | undefined = type ? type(new Type(data.data as unknown[], options)) : undefined;
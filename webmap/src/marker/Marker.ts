@@ -19,6 +19,12 @@ export abstract class Marker {
     }
 
     abstract update(data: unknown[], options?: MarkerOptions): void;
+
+    /**
+     * Called when the map's zoom level changed
+     */
+    public onZoom(): void {
+    }
 }
 
 export class Type {
@@ -1,7 +1,7 @@
 import * as L from "leaflet";
 import {Marker, Type} from "./Marker";
 import {Polygon} from "../util/Polygon";
-import {getOrCreatePane, isset, toCenteredLatLng} from "../util/Util";
+import {getOrCreatePane, getVisiblePoints, getZoomLevel, isset, toCenteredLatLng} from "../util/Util";
 import {Polyline} from "../util/Polyline";
 import {Point} from "../util/Point";
 
@@ -12,6 +12,9 @@ interface MultiPolygonOptions extends L.PolylineOptions {
 }
 
 export class MultiPolygon extends Marker {
+    private _data: MultiPolygonOptions;
+    private _zoom: number;
+
     constructor(type: Type) {
         const data: MultiPolygonOptions = type.data as unknown as MultiPolygonOptions;
 
@@ -33,21 +36,32 @@ export class MultiPolygon extends Marker {
         }
 
         super(data.key, L.polygon(MultiPolygon.createPolys(data), options));
+        this._data = data;
+        this._zoom = getZoomLevel();
     }
 
     public update(raw: unknown[]): void {
         const data: MultiPolygonOptions = raw as unknown as MultiPolygonOptions;
+        this._data = data;
+        this._zoom = getZoomLevel();
         const polygon: L.Polygon = this.marker as L.Polygon;
         polygon.setLatLngs(MultiPolygon.createPolys(data));
     }
 
+    public onZoom(): void {
+        // only lines with zoom levels look any different at another zoom level
+        if (this._zoom !== getZoomLevel() && this._data.polygons.some((polygon: Polygon): boolean => polygon.polylines.some((line: Polyline): boolean => line.zooms !== undefined))) {
+            this.update(this._data as unknown as unknown[]);
+        }
+    }
+
     private static createPolys(data: MultiPolygonOptions): L.LatLng[][][] {
         const polys: any[] = [];
         data.polygons.forEach((polygon: Polygon): void => {
             const poly: any[] = [];
             polygon.polylines.forEach((polyline: Polyline): void => {
                 const line: any[] = [];
-                polyline.points.forEach((point: Point): void => {
+                getVisiblePoints(polyline).forEach((point: Point): void => {
                     line.push(toCenteredLatLng(point))
                 });
                 poly.push(line);
@@ -1,7 +1,7 @@
 import * as L from "leaflet";
 import {Marker, Type} from "./Marker";
 import {Polyline} from "../util/Polyline";
-import {getOrCreatePane, isset, toCenteredLatLng} from "../util/Util";
+import {getOrCreatePane, getVisiblePoints, getZoomLevel, isset, toCenteredLatLng} from "../util/Util";
 import {Point} from "../util/Point";
 
 interface MultiPolylineOptions extends L.PolylineOptions {
@@ -11,6 +11,9 @@ interface MultiPolylineOptions extends L.PolylineOptions {
 }
 
 export class MultiPolyline extends Marker {
+    private _data: MultiPolylineOptions;
+    private _zoom: number;
+
     constructor(type: Type) {
         const data: MultiPolylineOptions = type.data as unknown as MultiPolylineOptions;
 
@@ -32,19 +35,30 @@ export class MultiPolyline extends Marker {
         }
 
         super(data.key, L.polyline(MultiPolyline.createLines(data), options));
+        this._data = data;
+        this._zoom = getZoomLevel();
     }
 
     public update(raw: unknown[]): void {
         const data: MultiPolylineOptions = raw as unknown as MultiPolylineOptions;
+        this._data = data;
+        this._zoom = getZoomLevel();
         const polyline: L.Polyline = this.marker as L.Polyline;
         polyline.setLatLngs(MultiPolyline.createLines(data));
     }
 
+    public onZoom(): void {
+        // only lines with zoom levels look any different at another zoom level
+        if (this._zoom !== getZoomLevel() && this._data.polylines.some((line: Polyline): boolean => line.zooms !== undefined)) {
+            this.update(this._data as unknown as unknown[]);
+        }
+    }
+
     private static createLines(data: MultiPolylineOptions): L.LatLng[][] {
         const lines: any[] = [];
         data.polylines.forEach((polylines: Polyline): void => {
             const line: any[] = [];
-            polylines.points.forEach((point: Point): void => {
+            getVisiblePoints(polylines).forEach((point: Point): void => {
                 line.push(toCenteredLatLng(point))
             });
             lines.push(line);
@@ -1,7 +1,7 @@
 import * as L from "leaflet";
 import {Marker, Type} from "./Marker";
 import {Polyline} from "../util/Polyline";
-import {getOrCreatePane, isset, toCenteredLatLng} from "../util/Util";
+import {getOrCreatePane, getVisiblePoints, getZoomLevel, isset, toCenteredLatLng} from "../util/Util";
 import {Point} from "../util/Point";
 
 interface PolygonOptions extends L.PolylineOptions {
@@ -11,6 +11,9 @@ interface PolygonOptions extends L.PolylineOptions {
 }
 
 export class Polygon extends Marker {
+    private _data: PolygonOptions;
+    private _zoom: number;
+
     constructor(type: Type) {
         const data: PolygonOptions = type.data as unknown as PolygonOptions;
 
@@ -32,19 +35,30 @@ export class Polygon extends Marker {
         }
 
         super(data.key, L.polygon(Polygon.createPoly(data), options));
+        this._data = data;
+        this._zoom = getZoomLevel();
     }
 
     public update(raw: unknown[]): void {
         const data: PolygonOptions = raw as unknown as PolygonOptions;
+        this._data = data;
+        this._zoom = getZoomLevel();
         const polygon: L.Polygon = this.marker as L.Polygon;
         polygon.setLatLngs(Polygon.createPoly(data));
     }
 
+    public onZoom(): void {
+        // only lines with zoom levels look any different at another zoom level
+        if (this._zoom !== getZoomLevel() && this._data.polylines.some((line: Polyline): boolean => line.zooms !== undefined)) {
+            this.update(this._data as unknown as unknown[]);
+        }
+    }
+
     private static createPoly(data: PolygonOptions): L.LatLng[][] {
         const poly: any[] = [];
         data.polylines.forEach((polyline: Polyline): void => {
             const line: any[] = [];
-            polyline.points.forEach((point: Point): void => {
+            getVisiblePoints(polyline).forEach((point: Point): void => {
                 line.push(toCenteredLatLng(point));
             });
             poly.push(line);
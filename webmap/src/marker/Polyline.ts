@@ -1,15 +1,19 @@
 import * as L from "leaflet";
 import {Marker, Type} from "./Marker";
 import {Point} from "../util/Point";
-import {getOrCreatePane, isset, toCenteredLatLng} from "../util/Util";
+import {getOrCreatePane, getVisiblePoints, getZoomLevel, isset, toCenteredLatLng} from "../util/Util";
 
 interface PolylineOptions extends L.PolylineOptions {
     key: string;
     points: Point[];
+    zooms?: number[];
     pane: string;
 }
 
 export class Polyline extends Marker {
+    private _data: PolylineOptions;
+    private _zoom: number;
+
     constructor(type: Type) {
         const data: PolylineOptions = type.data as unknown as PolylineOptions;
 
@@ -31,17 +35,28 @@ export class Polyline extends Marker {
         }
 
         super(data.key, L.polyline(Polyline.createLine(data), options));
+        this._data = data;
+        this._zoom = getZoomLevel();
     }
 
     public update(raw: unknown[]): void {
         const data: PolylineOptions = raw as unknown as PolylineOptions;
+        this._data = data;
+        this._zoom = getZoomLevel();
         const polyline: L.Polyline = this.marker as L.Polyline;
         polyline.setLatLngs(Polyline.createLine(data));
     }
 
+    public onZoom(): void {
+        // only lines with zoom levels look any different at another zoom level
+        if (this._zoom !== getZoomLevel() && this._data.zooms !== undefined) {
+            this.update(this._data as unknown as unknown[]);
+        }
+    }
+
     private static createLine(data: PolylineOptions): L.LatLng[] {
         const line: any[] = [];
-        data.points.forEach((point: Point): void => {
+        getVisiblePoints(data).forEach((point: Point): void => {
             line.push(toCenteredLatLng(point))
         });
         return line;
@@ -12,14 +12,18 @@ export class Settings {
     private readonly _zoom: Zoom;
     private readonly _players: Player[];
     private readonly _worldSettings: WorldSettings[];
+    private readonly _tileFeed: boolean;
+    private readonly _tileBatch: boolean;
 
-    constructor(format: string, maxPlayers: number, lang: Lang, zoom: Zoom, players: Player[], worldSettings: WorldSettings[]) {
+    constructor(format: string, maxPlayers: number, lang: Lang, zoom: Zoom, players: Player[], worldSettings: WorldSettings[], tileFeed: boolean, tileBatch: boolean) {
         this._format = format;
         this._maxPlayers = maxPlayers;
         this._lang = lang;
         this._zoom = zoom;
         this._players = players;
         this._worldSettings = worldSettings;
+        this._tileFeed = tileFeed;
+        this._tileBatch = tileBatch;
     }
 
     get format(): string {
@@ -45,6 +49,14 @@ export class Settings {
     get worldSettings(): WorldSettings[] {
         return this._worldSettings;
     }
+
+    get tileFeed(): boolean {
+        return this._tileFeed;
+    }
+
+    get tileBatch(): boolean {
+        return this._tileBatch;
+    }
 }
 
 export class Zoom {
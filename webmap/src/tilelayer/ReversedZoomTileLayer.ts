@@ -3,10 +3,41 @@ import {TileEvent} from "leaflet";
 import {Pl3xMap} from "../Pl3xMap";
 import {Label} from "../settings/Lang";
 import {Renderer, World} from "../world/World";
+import {getBytes, getJSON} from "../util/Util";
+
+interface LoadedTile {
+    tile: HTMLImageElement;
+    coords: L.Coords;
+}
+
+interface BatchedTile {
+    tile: HTMLImageElement;
+    coords: L.Coords;
+    zoom: number;
+    done: L.DoneCallback;
+}
 
 export class ReversedZoomTileLayer extends L.TileLayer {
+    // manifests cover 16x16 tiles each (see TileManifest.java)
+    private static readonly GROUP_SHIFT: number = 4;
+    // most tiles the server sends in one batch (see TileBatchHandler.java)
+    private static readonly BATCH_SIZE: number = 64;
+
     private readonly _world: World;
     private readonly _renderer: Label;
+    private readonly _format: string;
+    private readonly _batchTiles: boolean;
+
+    // tiles of the first view, fetched together in as few requests as possible
+    private _batch: BatchedTile[] = [];
+    private _batched: boolean = false;
+
+    // tile versions per manifest group, keyed by zoom/groupX_groupZ then by x_z
+    private readonly _manifests: Map<string, Map<string, number>> = new Map();
+    private readonly _pendingManifests: Map<string, Promise<Map<string, number>>> = new Map();
+
+    // tiles currently on the map, including missing ones, keyed by zoom/x_z
+    private readonly _loadedTiles: Map<string, LoadedTile> = new Map();
 
     constructor(pl3xmap: Pl3xMap, world: World, renderer: Renderer) {
         super(`tiles/${world.name}/{z}/${renderer.label}/{x}_{y}.${pl3xmap.settings?.format}`, {
@@ -29,17 +60,26 @@ export class ReversedZoomTileLayer extends L.TileLayer {
 
         this._world = world!;
         this._renderer = renderer;
+        this._format = pl3xmap.settings?.format ?? 'png';
+        this._batchTiles = pl3xmap.settings?.tileBatch ?? false;
 
         // when tiles load we need to load extra block info
         this.addEventListener("tileload", (event: TileEvent): void => {
             const zoom: number = world.settings.zoom.maxOut - event.coords.z;
             world.loadBlockInfo(zoom, event.coords.x, event.coords.y);
+            this.trackTile(zoom, event);
+        });
+
+        // keep track of missing tiles too, so they show up as soon as the server renders them
+        this.addEventListener("tileerror", (event: TileEvent): void => {
+            this.trackTile(world.settings.zoom.maxOut - event.coords.z, event);
         });
 
         // when tiles unload we need to remove the extra block info from memory
         this.addEventListener("tileunload", (event: TileEvent): void => {
             const zoom: number = world.settings.zoom.maxOut - event.coords.z;
             world.unsetBlockInfo(zoom, event.coords.x, event.coords.y);
+            this._loadedTiles.delete(this.tileKey(zoom, event.coords.x, event.coords.y));
         });
 
         // push this layer to the back (leaflet defaults it to 1)
@@ -54,6 +94,14 @@ export class ReversedZoomTileLayer extends L.TileLayer {
         return this._renderer;
     }
 
+    onRemove(map: L.Map): this {
+        // versions may be stale by the time this layer is added back
+        this._manifests.clear();
+        // the next time this layer is added it has a whole new view to fill
+        this._batched = false;
+        return super.onRemove(map);
+    }
+
     _getZoomForUrl(): number {
         const zoom: number = this._tileZoom!,
             maxZoom: number = this.options.maxZoom!,
@@ -61,6 +109,239 @@ export class ReversedZoomTileLayer extends L.TileLayer {
         return (maxZoom - zoom) + offset;
     }
 
+    getTileUrl(coords: L.Coords): string {
+        const url: string = super.getTileUrl(coords);
+        const version: number | undefined = this.getVersion(this._getZoomForUrl(), coords.x, coords.y);
+        // versioned urls are served as immutable, so browsers only ever download each version once
+        return version === undefined ? url : `${url}?v=${version}`;
+    }
+
+    /**
+     * Refetch the manifests of all tiles currently on the map
+     * and swap out only the tiles whose version has changed.
+     */
+    public updateTiles(): void {
+        const groups: Set<string> = new Set();
+        this._loadedTiles.forEach((loaded: LoadedTile): void => {
+            if (loaded.coords.z === this._tileZoom) {
+                groups.add(this.groupKey(this._getZoomForUrl(), loaded.coords.x, loaded.coords.y));
+            }
+        });
+        groups.forEach((group: string): void => {
+            this.loadManifest(group, true).then((): void => this.refreshChangedTiles(group));
+        });
+    }
+
+    /**
+     * Apply a single tile change pushed from the server's change feed,
+     * swapping the tile out right away if it is currently on the map.
+     */
+    public updateTile(zoom: number, x: number, z: number, version: number): void {
+        // only keep versions for groups we already know, others are fetched when needed
+        this._manifests.get(this.groupKey(zoom, x, z))?.set(`${x}_${z}`, version);
+        if (zoom !== this._getZoomForUrl()) {
+            return;
+        }
+        const loaded: LoadedTile | undefined = this._loadedTiles.get(this.tileKey(zoom, x, z));
+        if (loaded && loaded.coords.z === this._tileZoom && String(version) !== loaded.tile.dataset.version) {
+            this.refreshTile(loaded, version);
+        }
+    }
+
+    private refreshChangedTiles(group: string): void {
+        this._loadedTiles.forEach((loaded: LoadedTile): void => {
+            if (loaded.coords.z !== this._tileZoom) {
+                return;
+            }
+            const zoom: number = this._getZoomForUrl();
+            if (this.groupKey(zoom, loaded.coords.x, loaded.coords.y) !== group) {
+                return;
+            }
+            const version: number | undefined = this.getVersion(zoom, loaded.coords.x, loaded.coords.y);
+            if (version !== undefined && String(version) !== loaded.tile.dataset.version) {
+                this.refreshTile(loaded, version);
+            }
+        });
+    }
+
+    private refreshTile(loaded: LoadedTile, version: number): void {
+        // mark the new version right away so overlapping updates don't fetch it twice
+        const previous: string | undefined = loaded.tile.dataset.version;
+        loaded.tile.dataset.version = String(version);
+        this.fetchTile(this.getTileUrl(loaded.coords))
+            .then((src: string): void => {
+                // decode before swapping, so the old image stays visible until the new one is ready
+                const image: HTMLImageElement = new Image();
+                image.src = src;
+                image.decode()
+                    .catch((): void => undefined)
+                    .then((): void => {
+                        loaded.tile.dataset.refreshed = 'true';
+                        loaded.tile.src = src;
+                    });
+            })
+            .catch((): void => {
+                // try again next update
+                loaded.tile.dataset.version = previous;
+            });
+    }
+
+    private trackTile(zoom: number, event: TileEvent): void {
+        this._loadedTiles.set(this.tileKey(zoom, event.coords.x, event.coords.y), {
+            tile: event.tile,
+            coords: event.coords
+        });
+    }
+
+    private tileKey(zoom: number, x: number, z: number): string {
+        return `${zoom}/${x}_${z}`;
+    }
+
+    private groupKey(zoom: number, x: number, z: number): string {
+        const shift: number = ReversedZoomTileLayer.GROUP_SHIFT;
+        return `${zoom}/${x >> shift}_${z >> shift}`;
+    }
+
+    private getVersion(zoom: number, x: number, z: number): number | undefined {
+        return this._manifests.get(this.groupKey(zoom, x, z))?.get(`${x}_${z}`);
+    }
+
+    private loadManifest(group: string, refresh: boolean): Promise<Map<string, number>> {
+        const manifest: Map<string, number> | undefined = this._manifests.get(group);
+        if (manifest && !refresh) {
+            return Promise.resolve(manifest);
+        }
+        let pending: Promise<Map<string, number>> | undefined = this._pendingManifests.get(group);
+        if (!pending) {
+            const [zoom, file] = group.split('/');
+            pending = getJSON(`tiles/${this._world.name}/${zoom}/${this._renderer.label}/manifest/${file}.gz`)
+                .catch((): void => undefined)
+                .then((json): Map<string, number> => {
+                    this._pendingManifests.delete(group);
+                    if (!json) {
+                        // missing or unreadable, keep what we already know
+                        return this._manifests.get(group) ?? new Map();
+                    }
+                    const versions: Map<string, number> = new Map();
+                    Object.entries(json).forEach((entry: [string, unknown]): void => {
+                        versions.set(entry[0], Number(entry[1]));
+                    });
+                    this._manifests.set(group, versions);
+                    return versions;
+                });
+            this._pendingManifests.set(group, pending);
+        }
+        return pending;
+    }
+
+    private fetchTile(url: string): Promise<string> {
+        // Retrieve image via a fetch instead of just setting the src
+        // This works around the fact that browsers usually don't make a request for an image that was previously loaded,
+        // without resorting to changing the URL (which would break caching).
+        return fetch(url).then((res: Response): Promise<string> => {
+            // Call leaflet's error handler if request fails for some reason
+            if (!res.ok) {
+                throw new Error(res.statusText);
+            }
+
+            // Get image data and convert into data URL, so it can be used as a src
+            return res.blob().then((blob: Blob): Promise<string> => this.toDataURL(blob));
+        });
+    }
+
+    private toDataURL(blob: Blob): Promise<string> {
+        return new Promise((resolve, reject): void => {
+            // don't use URL.createObjectURL, it creates memory leak
+            const reader: FileReader = new FileReader();
+            reader.onload = (): void => resolve(String(reader.result));
+            reader.onerror = (): void => reject(reader.error);
+            reader.readAsDataURL(blob);
+        });
+    }
+
+    private loadTile(tile: HTMLImageElement, coords: L.Coords, zoom: number, done: L.DoneCallback): void {
+        // make sure we know the tile's version before building its url
+        this.loadManifest(this.groupKey(zoom, coords.x, coords.y), false)
+            .then((): Promise<string> => {
+                this.setTileVersion(tile, zoom, coords);
+                return this.fetchTile(this.getTileUrl(coords));
+            })
+            .then((src: string): string => tile.src = src)
+            .catch((e) => this._tileOnError(done, tile, e));
+    }
+
+    private setTileVersion(tile: HTMLImageElement, zoom: number, coords: L.Coords): void {
+        const version: number | undefined = this.getVersion(zoom, coords.x, coords.y);
+        tile.dataset.version = version === undefined ? '' : String(version);
+    }
+
+    private flushBatch(): void {
+        const batch: BatchedTile[] = this._batch;
+        this._batch = [];
+        if (batch.length === 0) {
+            return;
+        }
+
+        // only the first view is batched, tiles after that have cacheable versioned urls
+        this._batched = true;
+
+        const zoom: number = batch[0].zoom;
+        const groups: Set<string> = new Set();
+        batch.forEach((entry: BatchedTile): void => {
+            if (entry.zoom === zoom) {
+                groups.add(this.groupKey(zoom, entry.coords.x, entry.coords.y));
+            } else {
+                this.loadTile(entry.tile, entry.coords, entry.zoom, entry.done);
+            }
+        });
+        const tiles: BatchedTile[] = batch.filter((entry: BatchedTile): boolean => entry.zoom === zoom);
+
+        Promise.all([...groups].map((group: string) => this.loadManifest(group, false)))
+            .then((): void => {
+                const size: number = ReversedZoomTileLayer.BATCH_SIZE;
+                for (let i: number = 0; i < tiles.length; i += size) {
+                    this.fetchBatch(zoom, tiles.slice(i, i + size));
+                }
+            });
+    }
+
+    private fetchBatch(zoom: number, batch: BatchedTile[]): void {
+        const tiles: string = batch.map((entry: BatchedTile): string => `${entry.coords.x}_${entry.coords.y}`).join(',');
+        getBytes(`tiles/batch?world=${encodeURIComponent(this._world.name)}&renderer=${encodeURIComponent(this._renderer.label)}&zoom=${zoom}&tiles=${tiles}`)
+            .then((buffer?: ArrayBuffer): void => {
+                if (!buffer) {
+                    throw new Error('Tile batch unavailable');
+                }
+
+                // each tile is a 4 byte length followed by its image data, 0 length means missing
+                const view: DataView = new DataView(buffer);
+                const images: (Uint8Array | undefined)[] = [];
+                let offset: number = 0;
+                batch.forEach((): void => {
+                    const length: number = view.getInt32(offset);
+                    offset += 4;
+                    images.push(length > 0 ? new Uint8Array(buffer, offset, length) : undefined);
+                    offset += length;
+                });
+
+                batch.forEach((entry: BatchedTile, index: number): void => {
+                    this.setTileVersion(entry.tile, zoom, entry.coords);
+                    const image: Uint8Array | undefined = images[index];
+                    if (!image) {
+                        this._tileOnError(entry.done, entry.tile, new Error('Not Found'));
+                        return;
+                    }
+                    this.toDataURL(new Blob([image], {type: `image/${this._format}`}))
+                        .then((src: string): string => entry.tile.src = src)
+                        .catch((e) => this._tileOnError(entry.done, entry.tile, e));
+                });
+            })
+            .catch((): void => {
+                // fall back to a request per tile
+                batch.forEach((entry: BatchedTile): void => this.loadTile(entry.tile, entry.coords, zoom, entry.done));
+            });
+    }
+
     // @method createTile(coords: Object, done?: Function): HTMLElement
     // Called only internally, overrides GridLayer's [`createTile()`](#gridlayer-createtile)
     // to return an `<img>` HTML element with the appropriate image URL given `coords`. The `done`
@@ -71,6 +352,14 @@ export class ReversedZoomTileLayer extends L.TileLayer {
         L.DomEvent.on(tile, 'load', (): void => {
             // Once image has loaded revoke the object URL as we don't need it anymore
             URL.revokeObjectURL(tile.src);
+            if (tile.dataset.refreshed) {
+                // a newer version replaced an already loaded tile, skip leaflet's fade in
+                delete tile.dataset.refreshed;
+                // tiles that were missing were never marked as loaded, which keeps them hidden
+                L.DomUtil.addClass(tile, 'leaflet-tile-loaded');
+                this.fire('tileload', {tile: tile, coords: coords});
+                return;
+            }
             this._tileOnLoad(done, tile)
         });
         L.DomEvent.on(tile, 'error', L.Util.bind(this._tileOnError, this, done, tile));
@@ -82,26 +371,16 @@ export class ReversedZoomTileLayer extends L.TileLayer {
         tile.alt = '';
         tile.setAttribute('role', 'presentation');
 
-        // Retrieve image via a fetch instead of just setting the src
-        // This works around the fact that browsers usually don't make a request for an image that was previously loaded,
-        // without resorting to changing the URL (which would break caching).
-        fetch(this.getTileUrl(coords))
-            .then((res: Response): void => {
-                // Call leaflet's error handler if request fails for some reason
-                if (!res.ok) {
-                    this._tileOnError(done, tile, new Error(res.statusText));
-                    return;
-                }
-
-                // Get image data and convert into object URL, so it can be used as a src
-                // Leaflet's onload listener will take it from here
-                res.blob().then((blob: Blob): void => {
-                    // don't use URL.createObjectURL, it creates memory leak
-                    const reader: FileReader = new FileReader();
-                    reader.readAsDataURL(blob);
-                    reader.onload = () => tile.src = String(reader.result);
-                });
-            }).catch((e) => this._tileOnError(done, tile, e));
+        const zoom: number = this._getZoomForUrl();
+        if (this._batchTiles && !this._batched) {
+            // leaflet creates all tiles of a view in one go, collect them and fetch them together
+            this._batch.push({tile: tile, coords: coords, zoom: zoom, done: done});
+            if (this._batch.length === 1) {
+                setTimeout((): void => this.flushBatch(), 0);
+            }
+        } else {
+            this.loadTile(tile, coords, zoom, done);
+        }
 
         return tile;
     }
@@ -0,0 +1,145 @@
+import {MarkerData} from "../layergroup/MarkerLayer";
+import {Options} from "../marker/options/MarkerOptions";
+
+/**
+ * Decodes markers written by BinaryMarkerWriter.java back into the same shape as the json marker files.
+ */
+export class BinaryMarkerReader {
+    private static readonly VERSION: number = 1;
+
+    private static readonly NULL: number = 0;
+    private static readonly FALSE: number = 1;
+    private static readonly TRUE: number = 2;
+    private static readonly INT: number = 3;
+    private static readonly DOUBLE: number = 4;
+    private static readonly STRING: number = 5;
+    private static readonly ARRAY: number = 6;
+    private static readonly OBJECT: number = 7;
+    private static readonly POINTS: number = 8;
+    private static readonly INTS: number = 9;
+
+    private readonly _view: DataView;
+    private readonly _strings: string[] = [];
+    private _pos: number = 0;
+
+    private constructor(buffer: ArrayBuffer) {
+        this._view = new DataView(buffer);
+    }
+
+    static decode(buffer: ArrayBuffer): MarkerData[] {
+        return new BinaryMarkerReader(buffer).read();
+    }
+
+    private read(): MarkerData[] {
+        const magic: string = String.fromCharCode(this.readByte(), this.readByte(), this.readByte());
+        const version: number = this.readByte();
+        if (magic !== 'PMB' || version !== BinaryMarkerReader.VERSION) {
+            throw new Error(`Unsupported marker data (${magic} v${version})`);
+        }
+
+        const decoder: TextDecoder = new TextDecoder();
+        const stringCount: number = this.readVarInt();
+        for (let i = 0; i < stringCount; i++) {
+            const length: number = this.readVarInt();
+            this._strings.push(decoder.decode(new Uint8Array(this._view.buffer, this._view.byteOffset + this._pos, length)));
+            this._pos += length;
+        }
+
+        // markers sharing options share the same object
+        const options: Options[] = [];
+        const optionCount: number = this.readVarInt();
+        for (let i = 0; i < optionCount; i++) {
+            options.push(this.readValue() as Options);
+        }
+
+        const markers: MarkerData[] = [];
+        const markerCount: number = this.readVarInt();
+        for (let i = 0; i < markerCount; i++) {
+            const type: string = this._strings[this.readVarInt()];
+            const data: unknown[] = this.readValue() as unknown[];
+            const index: number = this.readVarInt();
+            markers.push({type: type, data: data, options: index > 0 ? options[index - 1] : undefined});
+        }
+        return markers;
+    }
+
+    private readValue(): unknown {
+        const tag: number = this.readByte();
+        switch (tag) {
+            case BinaryMarkerReader.NULL:
+                return null;
+            case BinaryMarkerReader.FALSE:
+                return false;
+            case BinaryMarkerReader.TRUE:
+                return true;
+            case BinaryMarkerReader.INT:
+                return this.readSignedVarInt();
+            case BinaryMarkerReader.DOUBLE: {
+                const value: number = this._view.getFloat64(this._pos);
+                this._pos += 8;
+                return value;
+            }
+            case BinaryMarkerReader.STRING:
+                return this._strings[this.readVarInt()];
+            case BinaryMarkerReader.ARRAY: {
+                const array: unknown[] = new Array(this.readVarInt());
+                for (let i = 0; i < array.length; i++) {
+                    array[i] = this.readValue();
+                }
+                return array;
+            }
+            case BinaryMarkerReader.OBJECT: {
+                const obj: { [key: string]: unknown } = {};
+                const size: number = this.readVarInt();
+                for (let i = 0; i < size; i++) {
+                    const key: string = this._strings[this.readVarInt()];
+                    obj[key] = this.readValue();
+                }
+                return obj;
+            }
+            case BinaryMarkerReader.POINTS: {
+                const points: { x: number, z: number }[] = new Array(this.readVarInt());
+                let x: number = 0, z: number = 0;
+                for (let i = 0; i < points.length; i++) {
+                    x += this.readSignedVarInt();
+                    z += this.readSignedVarInt();
+                    points[i] = {x: x, z: z};
+                }
+                return points;
+            }
+            case BinaryMarkerReader.INTS: {
+                const ints: number[] = new Array(this.readVarInt());
+                let last: number = 0;
+                for (let i = 0; i < ints.length; i++) {
+                    last += this.readSignedVarInt();
+                    ints[i] = last;
+                }
+                return ints;
+            }
+            default:
+                throw new Error(`Unknown marker value tag ${tag} at ${this._pos - 1}`);
+        }
+    }
+
+    private readByte(): number {
+        return this._view.getUint8(this._pos++);
+    }
+
+    private readVarInt(): number {
+        // multiply instead of shifting, js bitwise operators stop at 32 bits
+        let value: number = 0;
+        let scale: number = 1;
+        let b: number;
+        do {
+            b = this.readByte();
+            value += (b & 0x7F) * scale;
+            scale *= 128;
+        } while (b & 0x80);
+        return value;
+    }
+
+    private readSignedVarInt(): number {
+        const value: number = this.readVarInt();
+        return value % 2 === 0 ? value / 2 : -(value + 1) / 2;
+    }
+}
@@ -3,10 +3,12 @@ import {Point} from "./Point";
 export class Polyline {
     private readonly _key: string;
     private readonly _points: Point[];
+    private readonly _zooms?: number[];
 
-    constructor(key: string, points: Point[]) {
+    constructor(key: string, points: Point[], zooms?: number[]) {
         this._key = key;
         this._points = points;
+        this._zooms = zooms;
     }
 
     get key(): string {
@@ -16,4 +18,11 @@ export class Polyline {
     get points(): Point[] {
         return this._points;
     }
+
+    /**
+     * Highest zoom out level each point is still visible at, only sent for long lines (see Simplify.java)
+     */
+    get zooms(): number[] | undefined {
+        return this._zooms;
+    }
 }
@@ -47,6 +47,25 @@ export function toCenteredLatLng(point: Point): L.LatLng {
     return toLatLng([point.x + 0.5, point.z + 0.5]);
 }
 
+/**
+ * Get the points of a line that are visible at the current zoom level
+ *
+ * @param line line with optional per point zoom levels
+ * @returns points to draw
+ */
+export function getVisiblePoints(line: { points: Point[], zooms?: number[] }): Point[] {
+    const zooms: number[] | undefined = line.zooms;
+    if (!zooms) {
+        return line.points;
+    }
+    const zoom: number = getZoomLevel();
+    return line.points.filter((point: Point, index: number): boolean => zooms[index] >= zoom);
+}
+
+export function getZoomLevel(): number {
+    return Math.floor(Pl3xMap.instance.map.getCurrentZoom());
+}
+
 export function toLatLng(point: L.PointTuple): L.LatLng {
     return L.latLng(pixelsToMeters(point[1]), pixelsToMeters(point[0]));
 }
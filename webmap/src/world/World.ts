@@ -3,10 +3,18 @@ import {MarkerLayer} from "../layergroup/MarkerLayer";
 import {BlockInfo} from "../palette/BlockInfo";
 import {Label} from "../settings/Lang";
 import {Spawn, WorldSettings, Zoom} from "../settings/WorldSettings";
-import {DoubleTileLayer} from "../tilelayer/DoubleTileLayer";
+import {ReversedZoomTileLayer} from "../tilelayer/ReversedZoomTileLayer";
 import {WorldManager} from "./WorldManager";
 import {fireCustomEvent, getBytes, getJSON} from "../util/Util";
 
+// response of the server's tile change feed (see TileChangeFeed.java)
+interface TileChanges {
+    epoch: string;
+    seq: number;
+    reset: boolean;
+    changes: [string, number, number, number, number][];
+}
+
 /**
  * Represents a loaded world.
  */
@@ -15,9 +23,9 @@ export class World {
     private readonly _settings: WorldSettings;
 
     private _currentRenderer?: Renderer;
-    private _currentRendererLayer?: DoubleTileLayer;
+    private _currentRendererLayer?: ReversedZoomTileLayer;
 
-    private _rendererLayers: Map<Renderer, DoubleTileLayer> = new Map();
+    private _rendererLayers: Map<Renderer, ReversedZoomTileLayer> = new Map();
     private _markerLayers: MarkerLayer[] = [];
 
     private _biomePalette: Map<number, string> = new Map();
@@ -27,6 +35,14 @@ export class World {
 
     private _timer: NodeJS.Timeout | undefined;
 
+    // tile change feed state, the generation guards against responses arriving after an unload
+    private _feedTimer: NodeJS.Timeout | undefined;
+    private _feedGeneration: number = 0;
+    private _feedRunning: boolean = false;
+    private _feedLive: boolean = false;
+    private _feedSeq: number = -1;
+    private _feedEpoch: string = '';
+
     constructor(pl3xmap: Pl3xMap, worldManager: WorldManager, settings: WorldSettings) {
         this._pl3xmap = pl3xmap;
         this._settings = settings;
@@ -69,7 +85,7 @@ export class World {
 
                     // setup renderers
                     this.settings.renderers.forEach((renderer: Renderer): void => {
-                        this._rendererLayers.set(renderer, new DoubleTileLayer(this._pl3xmap, this, renderer));
+                        this._rendererLayers.set(renderer, new ReversedZoomTileLayer(this._pl3xmap, this, renderer));
                     });
 
                     resolve(this);
@@ -79,6 +95,7 @@ export class World {
 
     public unload(): void {
         clearTimeout(this._timer);
+        this.stopTileFeed();
         // unload and clear markers
         this._markerLayers.forEach((layer: MarkerLayer) => layer.unload())
         this._markerLayers = [];
@@ -92,7 +109,7 @@ export class World {
         getJSON(`tiles/${this.name}/markers.json`)
             .then((json): void => {
                 (json as MarkerLayer[]).forEach((layer: MarkerLayer): void => {
-                    const markerLayer: MarkerLayer = new MarkerLayer(layer.key, layer.label, layer.updateInterval, layer.showControls, layer.defaultHidden, layer.priority, layer.zIndex, layer.pane, layer.css);
+                    const markerLayer: MarkerLayer = new MarkerLayer(layer.key, layer.label, layer.updateInterval, layer.showControls, layer.defaultHidden, layer.priority, layer.zIndex, layer.pane, layer.css, layer.tiled, layer.clustered, layer.binary);
                     this._markerLayers.push(markerLayer);
                     markerLayer.update(this);
                 });
@@ -133,11 +150,11 @@ export class World {
         this.blockInfo.get(zoom)?.delete(`${x}_${z}`);
     }
 
-    public getRendererLayer(renderer: Renderer): DoubleTileLayer | undefined {
+    public getRendererLayer(renderer: Renderer): ReversedZoomTileLayer | undefined {
         return this._rendererLayers.get(renderer);
     }
 
-    get currentRendererLayer(): DoubleTileLayer | undefined {
+    get currentRendererLayer(): ReversedZoomTileLayer | undefined {
         return this._currentRendererLayer;
     }
 
@@ -162,6 +179,7 @@ export class World {
         this._currentRendererLayer!.addTo(this._pl3xmap.map);
 
         this.tick();
+        this.startTileFeed();
 
         fireCustomEvent('rendererselected', this);
     }
@@ -227,9 +245,63 @@ export class World {
     }
 
     private tick(): void {
-        this.currentRendererLayer?.updateTileLayer();
+        // changed tiles are pushed to us while the feed is up, only poll the manifests without it
+        if (!this._feedLive) {
+            this.currentRendererLayer?.updateTiles();
+        }
         this._timer = setTimeout(() => this.tick(), this.settings.tileUpdateInterval * 1000);
     }
+
+    private startTileFeed(): void {
+        if (this._feedRunning || !this._pl3xmap.settings?.tileFeed) {
+            return;
+        }
+        this._feedRunning = true;
+        this._feedSeq = -1;
+        this.pollTileFeed(++this._feedGeneration);
+    }
+
+    private stopTileFeed(): void {
+        clearTimeout(this._feedTimer);
+        this._feedGeneration++;
+        this._feedRunning = false;
+        this._feedLive = false;
+    }
+
+    private pollTileFeed(generation: number): void {
+        getJSON(`tiles/changes?world=${encodeURIComponent(this.name)}&since=${this._feedSeq}&epoch=${this._feedEpoch}`)
+            .then((json?: TileChanges): void => {
+                if (generation !== this._feedGeneration) {
+                    return;
+                }
+                if (!json) {
+                    throw new Error('Tile change feed unavailable');
+                }
+                const missed: boolean = json.reset || (!this._feedLive && this._feedSeq >= 0);
+                this._feedLive = true;
+                this._feedSeq = json.seq;
+                this._feedEpoch = json.epoch;
+                if (missed) {
+                    // we lost track of what changed, catch up from the manifests
+                    this.currentRendererLayer?.updateTiles();
+                }
+                json.changes.forEach(([renderer, zoom, x, z, version]): void => {
+                    if (renderer === this._currentRenderer?.label) {
+                        this.currentRendererLayer?.updateTile(zoom, x, z, version);
+                    }
+                });
+                // give the server a moment to batch up more changes while it is busy
+                this._feedTimer = setTimeout(() => this.pollTileFeed(generation), json.changes.length > 0 ? 1000 : 0);
+            })
+            .catch((): void => {
+                if (generation !== this._feedGeneration) {
+                    return;
+                }
+                // fall back to polling the manifests and try the feed again later
+                this._feedLive = false;
+                this._feedTimer = setTimeout(() => this.pollTileFeed(generation), this.settings.tileUpdateInterval * 1000);
+            });
+    }
 }
 
 export class Renderer extends Label {